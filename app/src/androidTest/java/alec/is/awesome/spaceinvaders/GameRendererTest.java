@@ -0,0 +1,66 @@
+package alec.is.awesome.spaceinvaders;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import alec.is.awesome.spaceinvaders.core.FrameSnapshot;
+import alec.is.awesome.spaceinvaders.core.ShipEntity;
+import alec.is.awesome.spaceinvaders.core.Sprite;
+import alec.is.awesome.spaceinvaders.core.World;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for drawing frames with a GameRenderer on a device.
+ */
+@RunWith(AndroidJUnit4.class)
+public class GameRendererTest {
+
+    @Test
+    public void loadingFrame_doesNotWaitForTheImages() throws Exception {
+        ResourceLoader.init(InstrumentationRegistry.getTargetContext());
+        ImageLibrary.init();
+        World world = new World(1080, 1920);
+
+        //Start loading the player's image but hold the decode back, as if it were slow
+        final List<Runnable> held = new ArrayList<>();
+        Executor holdBack = new Executor() {
+            @Override
+            public void execute(Runnable task) {
+                held.add(task);
+            }
+        };
+        ImageLibrary.load(holdBack, Sprite.PLAYER_SHIP, ShipEntity.dims(world), ShipEntity.dims(world));
+
+        //The first frame already has the player in it
+        final FrameSnapshot frame = new FrameSnapshot();
+        world.writeSnapshot(frame);
+        final GameRenderer renderer = new GameRenderer(Color.BLACK);
+        renderer.setGameState(GameDisplay.LOADING);
+        final Canvas canvas = new Canvas(Bitmap.createBitmap(1080, 1920, Bitmap.Config.ARGB_8888));
+        Thread drawing = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                renderer.draw(canvas, 1080, 1920, frame);
+            }
+        });
+        drawing.start();
+        drawing.join(5000);
+        boolean blocked = drawing.isAlive();
+
+        //Finish the load so nothing else is left waiting for it
+        held.get(0).run();
+        drawing.join();
+        assertFalse("drawing a LOADING frame waited for an image to decode", blocked);
+    }
+}
@@ -0,0 +1,68 @@
+package alec.is.awesome.spaceinvaders;
+
+import android.os.Bundle;
+import android.os.SystemClock;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.rule.ActivityTestRule;
+import android.support.test.runner.AndroidJUnit4;
+import android.util.Log;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/**
+ * Measures how long MainActivity takes to start on a device: until its first frame is drawn,
+ * and until the images have loaded and a game can be started.
+ * Run with ./gradlew connectedAndroidTest and read the StartupBenchmark lines in logcat,
+ * or the results in the instrumentation output.
+ * The app is already running, so this measures a warm start of the Activity rather than a cold start of the process.
+ */
+@RunWith(AndroidJUnit4.class)
+public class StartupBenchmark {
+    private static final int RUNS = 10;
+    private static final String TAG = "StartupBenchmark";
+
+    @Rule
+    public ActivityTestRule<MainActivity> rule = new ActivityTestRule<>(MainActivity.class, false, false);
+
+    @Test
+    public void startup() throws Exception {
+        long[] firstFrame = new long[RUNS];
+        long[] loaded = new long[RUNS];
+        for (int i = 0; i < RUNS; i++) {
+            long start = SystemClock.elapsedRealtimeNanos();
+            //Returns once the Activity is resumed and the UI thread is idle, so its first frame has been drawn
+            MainActivity activity = rule.launchActivity(null);
+            firstFrame[i] = SystemClock.elapsedRealtimeNanos() - start;
+            while (activity.getGameLoop().isLoading()) {
+                Thread.sleep(1);
+            }
+            loaded[i] = SystemClock.elapsedRealtimeNanos() - start;
+            assertFalse(activity.getGameLoop().isRunning());
+            activity.finish();
+            InstrumentationRegistry.getInstrumentation().waitForIdleSync();
+        }
+
+        Bundle results = new Bundle();
+        report(results, "first_frame_ms", firstFrame);
+        report(results, "assets_loaded_ms", loaded);
+        InstrumentationRegistry.getInstrumentation().sendStatus(0, results);
+    }
+
+    /**
+     * Log the median and worst of some times
+     */
+    private void report(Bundle results, String name, long[] nanos) {
+        Arrays.sort(nanos);
+        double median = nanos[nanos.length / 2] / 1e6;
+        double max = nanos[nanos.length - 1] / 1e6;
+        Log.i(TAG, name + " median " + median + " max " + max);
+        results.putDouble(name + "_median", median);
+        results.putDouble(name + "_max", max);
+    }
+}
@@ -0,0 +1,122 @@
+package alec.is.awesome.spaceinvaders;
+
+import android.os.Process;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import alec.is.awesome.spaceinvaders.core.Sprite;
+
+/**
+ * Decodes the game's images on background threads, several at once, so that starting the app
+ * does not wait for them. The first frame can be drawn straight away while the images are still
+ * loading, and anything that needs an image before it is ready waits for just that image
+ * (see ImageLibrary.getImage).
+ */
+public class AssetLoader implements Executor {
+    private final ExecutorService pool;
+    private final AtomicInteger queued = new AtomicInteger(); //Every image asked for
+    private final AtomicInteger remaining = new AtomicInteger(); //Images that have not finished loading
+    private final AtomicReference<Runnable> whenDone = new AtomicReference<>();
+
+    /**
+     * @param threads How many images to decode at once, usually the number of processors
+     */
+    public AssetLoader(int threads) {
+        final AtomicInteger count = new AtomicInteger();
+        pool = Executors.newFixedThreadPool(Math.max(1, threads), new ThreadFactory() {
+            @Override
+            public Thread newThread(final Runnable r) {
+                Thread t = new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        //Leave the UI thread and the render thread as much time as possible for the first frames
+                        Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                        r.run();
+                    }
+                }, "AssetLoader-" + count.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            }
+        });
+    }
+
+    /**
+     * Start decoding a Sprite's image at the size it will be drawn
+     * @param sprite The Sprite to load
+     * @param width The width it is drawn at
+     * @param height The height it is drawn at
+     */
+    public void load(Sprite sprite, int width, int height) {
+        queued.incrementAndGet();
+        remaining.incrementAndGet();
+        ImageLibrary.load(this, sprite, width, height);
+    }
+
+    /**
+     * Run something once every image asked for so far has loaded, on whichever thread finishes last.
+     * If they have all loaded already it is run straight away on this thread.
+     * @param done What to run. Replaces anything given earlier that has not run yet.
+     */
+    public void whenDone(Runnable done) {
+        whenDone.set(done);
+        if(remaining.get() == 0){
+            runWhenDone();
+        }//if
+    }
+
+    /**
+     * Used by ImageLibrary to decode each image on the pool. Not for other work.
+     * @param task The decoding to do
+     */
+    @Override
+    public void execute(final Runnable task) {
+        pool.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    task.run();
+                } finally {
+                    if(remaining.decrementAndGet() == 0){
+                        runWhenDone();
+                    }//if
+                }//finally
+            }
+        });
+    }
+
+    /**
+     * Run the waiting whenDone task, making sure it only runs once however many threads get here
+     */
+    private void runWhenDone() {
+        Runnable done = whenDone.getAndSet(null);
+        if(done != null){
+            done.run();
+        }//if
+    }
+
+    /**
+     * @return How many images have finished loading
+     */
+    public int getLoaded() {
+        return queued.get() - remaining.get();
+    }
+
+    /**
+     * @return How many images have been asked for
+     */
+    public int getTotal() {
+        return queued.get();
+    }
+
+    /**
+     * Let the threads finish once the images already asked for have loaded. No more can be loaded afterwards.
+     */
+    public void shutdown() {
+        pool.shutdown();
+    }
+}
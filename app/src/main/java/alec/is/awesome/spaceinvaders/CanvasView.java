@@ -4,12 +4,13 @@ import android.content.Context;
 import android.content.res.TypedArray;
 import android.graphics.Canvas;
 import android.graphics.Color;
-import android.graphics.Paint;
-import android.graphics.Rect;
 import android.util.AttributeSet;
-import android.view.MotionEvent;
+import android.view.Choreographer;
+import android.view.Display;
 import android.view.View;
 
+import alec.is.awesome.spaceinvaders.core.PerformanceStats;
+
 /**
  * Created by Alec Krawciw on 2017-05-03.
  */
@@ -18,51 +19,35 @@ import android.view.View;
  * An Android custom view that can be drawn upon and receive touch events.
  * This is similar to a JFrame except that the constructor is called by the operating system,
  * not you.
+ * While a game is running the view redraws itself once per display refresh (vsync)
+ * using the Choreographer, independently of how often the game loop steps.
+ * Drawing happens on the UI thread, see GameSurfaceView for a display that draws on its own thread.
  */
-public class CanvasView extends View implements View.OnTouchListener {
-    //Game loop state variables
-    public static final int MENU = 0;
-    public static final int IN_GAME = 1;
-    public static final int LOSE = 2;
-    public static final int WIN = 3;
-
-    /**
-     * Stores the current state that the game is in.
-     */
-    private int gameState = MENU;
-
-    /**
-     * Contains parameters informing the Canvas how to draw objects.
-     * Use this to modify fonts, stroke style and colour.
-     */
-    private Paint params;
-
+public class CanvasView extends View implements GameDisplay, Choreographer.FrameCallback {
     /**
-     * Background colour of the view. By default it is clear
-     * This can be modified here or in the Android colours resources file.
-     * res/values/colours.xml
+     * Draws the game onto the Canvas
      */
-    private int backgroundColour;
+    private GameRenderer renderer;
 
     /**
-     * Store the size of this screen
+     * The game loop managing gameplay
      */
-    public static Rect SCREEN_SIZE;
+    private GameLoop loop;
 
     /**
-     * The game loop managing gameplay
+     * True while a frame callback is waiting for the next vsync
      */
-    private GameLoop loop;
+    private boolean isRendering = false;
 
     /**
-     * The last time that a touch event occurred
+     * Where dropped frames are counted, null when not measuring. Only used on the UI thread.
      */
-    private long lastTouchTime = 0;
+    private PerformanceStats stats;
 
     /**
-     * The last time that the user took a shot
+     * How long one refresh of the display takes
      */
-    private long lastShootTime = 0;
+    private long refreshNanos = 1000000000L / 60;
 
     /**
      * Useful for using the logging live template.
@@ -79,11 +64,9 @@ public class CanvasView extends View implements View.OnTouchListener {
      */
     public CanvasView(Context c, AttributeSet attrs) {
         super(c, attrs);
-        setOnTouchListener(this);
 
-        params = new Paint();
         TypedArray a = c.obtainStyledAttributes(attrs, R.styleable.CanvasView);
-        backgroundColour = a.getColor(R.styleable.CanvasView_bColor, Color.argb(1, 0, 0, 0));
+        renderer = new GameRenderer(a.getColor(R.styleable.CanvasView_bColor, Color.argb(1, 0, 0, 0)));
 
         //It is important to destroy the array
         a.recycle();
@@ -93,53 +76,66 @@ public class CanvasView extends View implements View.OnTouchListener {
      * This makes the gameloop aware of the CanvasView and vice versa
      * @param g The gameloop that is in use for this game.
      */
+    @Override
     public void init(GameLoop g){
         g.registerView(this);
         loop = g;
+        stats = g.getStats();
+        renderer.setStats(stats);
+        renderer.setSessions(g.getSessions());
+        g.getViewport().update(getWidth(), getHeight());
+        setOnTouchListener(new TouchController(g));
     }
 
     /**
-     * Modifies the screen size (in case of screen rotation)
+     * Called by the operating system when the view is laid out or the screen rotates.
+     * Lets the game know the new size of the playing area.
      */
-    private void updateScreenSize(){
-        Rect fullScreen = new Rect();
-        getDrawingRect(fullScreen);
-        SCREEN_SIZE = fullScreen;
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh){
+        super.onSizeChanged(w, h, oldw, oldh);
+        if(loop != null){
+            loop.getViewport().update(w, h);
+        }//if
     }
 
     /**
-     * Method that deals with input coming via the phone's touchscreen.
-     * Look at MotionEvent for more information. It is worth being aware of the fact that
-     * for multi-touch enabled devices the second touch is not an ACTION_DOWN event but rather a
-     * POINTER_DOWN event
-     * @param v The view from which the touch event originated
-     * @param event Information about the event eg. location of click
-     * @return True if this is the last view that should be aware of the event false otherwise
+     * Starts redrawing the view once per display frame until the game stops.
+     * Must be called from the UI thread.
      */
     @Override
-    public boolean onTouch(View v, MotionEvent event) {
-        //If the game loop is not running that means that we should start the game
-        if(!loop.isRunning() && event.getAction() == MotionEvent.ACTION_DOWN && System.currentTimeMillis() - lastTouchTime > 1000){
-            loop.start();
-        }
-
-        //During gameplay these control the ship's actions
-        if (event.getAction() == MotionEvent.ACTION_UP) {
-            loop.moveShip(0);
-        } else if (event.getAction() == MotionEvent.ACTION_DOWN) {
-            if (event.getX() < loop.getPlayer().getX()) {
-                loop.moveShip(-0.7);
-            } else if (event.getX() > loop.getPlayer().getX()) {
-                loop.moveShip(0.7);
-            }
-        }
-        if(System.currentTimeMillis() - lastShootTime > 400){
-            loop.shootShip();
-            lastShootTime = System.currentTimeMillis();
-        }
-
-        lastTouchTime = System.currentTimeMillis();
-        return true;
+    public void startRendering(){
+        if(!isRendering){
+            isRendering = true;
+            Display display = getDisplay();
+            if(display != null && display.getRefreshRate() > 0){
+                refreshNanos = (long) (1000000000L / display.getRefreshRate());
+            }//if
+            Choreographer.getInstance().postFrameCallback(this);
+        }//if
+    }
+
+    /**
+     * Called by the Choreographer once per display frame while rendering.
+     * Once the game stops or pauses one last frame is drawn (to show the result) and
+     * no more frames are requested until startRendering is called again.
+     * @param frameTimeNanos The time the frame started, in System.nanoTime() time
+     */
+    @Override
+    public void doFrame(long frameTimeNanos){
+        if(stats != null){
+            stats.recordVsync(frameTimeNanos, refreshNanos);
+        }//if
+        invalidate();
+        if(loop.isRunning() && !loop.isPaused()){
+            Choreographer.getInstance().postFrameCallback(this);
+        } else {
+            isRendering = false;
+            if(stats != null){
+                //The time until rendering starts again is not dropped frames
+                stats.stopVsync();
+            }//if
+        }//if
     }
 
     /**
@@ -147,72 +143,29 @@ public class CanvasView extends View implements View.OnTouchListener {
      * is the equivalent to paintComponent
      * @param c The Canvas object that will be used to draw the game on.
      */
+    @Override
     public void onDraw(Canvas c){
         super.onDraw(c);
-        updateScreenSize();
-        drawBackground(c);
-
-        //Draw all of the enemies, shots and the player
-        params.setColor(backgroundColour);
-        if(loop != null) {
-            for (Entity e : loop.getEnemies()) {
-                e.draw(c);
-            }
-
-            for (Entity e : loop.getShots()) {
-                e.draw(c);
-            }
-
-            loop.getPlayer().draw(c);
-        }
-
-        //Controls which messages are printed to the screen based on the game state
-        if(gameState == MENU){
-            drawCentredText(c, "PRESS THE SCREEN TO BEGIN", SCREEN_SIZE.height() / 2);
-        } else if(gameState == LOSE){
-            drawCentredText(c, "YOU LOSE!", SCREEN_SIZE.height() / 2);
-            drawCentredText(c, "PRESS THE SCREEN TO BEGIN", SCREEN_SIZE.height() / 2 + 60);
-        } else if(gameState == WIN){
-            drawCentredText(c, "YOU WIN!", SCREEN_SIZE.height() / 2);
-            drawCentredText(c, "PRESS THE SCREEN TO BEGIN", SCREEN_SIZE.height() / 2 + 60);
-        } else if(gameState == IN_GAME){
-            params.setColor(Color.WHITE);
-            params.setTextSize(30 * MainActivity.getScreenWidth() / 1080);
-            c.drawText("Num Kills: " + loop.getNumAliensShot(), 5, 35, params);
-        }
-
-    }
-
-    /**
-     * Helper method to draw the background which is transparent
-     * @param c The Canvas to be drawn upon
-     */
-    private void drawBackground(Canvas c){
-        params.setStyle(Paint.Style.FILL);
-        params.setColor(backgroundColour);
-        c.drawRect(SCREEN_SIZE, params);
+        renderer.draw(c, getWidth(), getHeight(), loop == null ? null : loop.getSnapshots().acquire());
     }
 
     /**
      * Allow the game loop to let the canvas know at what state the game is in.
+     * The new state is drawn straight away. May be called from any thread.
      * @param state The new game state to be set
      */
+    @Override
     public void setGameState(int state){
-        this.gameState = state;
+        renderer.setGameState(state);
+        postInvalidate();
     }
 
     /**
-     * Helper method that writes text centered horizontally
-     * on the screen. Note \n will not work with is method
-     * @param c The canvas to draw on
-     * @param toWrite The text to display
-     * @param y The vertical location of the text.
+     * Drops the copies of the sprites the renderer keeps while the game cannot be seen
+     * @param level The level passed to onTrimMemory, one of the ComponentCallbacks2.TRIM_MEMORY constants
      */
-    private void drawCentredText(Canvas c, String toWrite, int y){
-        params.setColor(Color.WHITE);
-        params.setTextSize(50 * MainActivity.getScreenWidth() / 1005);
-        int width = (int) params.measureText(toWrite) / 2;
-        c.drawText(toWrite, SCREEN_SIZE.width() / 2 - width, y, params);
-        params.setColor(backgroundColour);
+    @Override
+    public void trimMemory(int level){
+        renderer.trimMemory(level);
     }
 }
@@ -0,0 +1,43 @@
+package alec.is.awesome.spaceinvaders;
+
+import alec.is.awesome.spaceinvaders.core.GameState;
+
+/**
+ * Something that can show the game on the screen. The GameLoop talks to the
+ * display through this so that it does not matter which kind of View is drawing.
+ */
+public interface GameDisplay {
+    //Game loop state variables, see GameState
+    int MENU = GameState.MENU;
+    int IN_GAME = GameState.IN_GAME;
+    int LOSE = GameState.LOSE;
+    int WIN = GameState.WIN;
+    int LOADING = GameState.LOADING; //The images are still being decoded, the game cannot be started yet
+    int PAUSED = GameState.PAUSED;
+
+    /**
+     * This makes the gameloop aware of the display and vice versa
+     * @param g The gameloop that is in use for this game.
+     */
+    void init(GameLoop g);
+
+    /**
+     * Allow the game loop to let the display know at what state the game is in.
+     * May be called from any thread.
+     * @param state The new game state to be set
+     */
+    void setGameState(int state);
+
+    /**
+     * Starts redrawing once per display frame until the game stops.
+     * Must be called from the UI thread.
+     */
+    void startRendering();
+
+    /**
+     * Give back memory that can be made again when it is next needed. Called by the Activity's onTrimMemory.
+     * Must be called from the UI thread.
+     * @param level The level passed to onTrimMemory, one of the ComponentCallbacks2.TRIM_MEMORY constants
+     */
+    void trimMemory(int level);
+}
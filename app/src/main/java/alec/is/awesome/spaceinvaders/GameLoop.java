@@ -1,209 +1,805 @@
 package alec.is.awesome.spaceinvaders;
 
-import java.util.List;
-import java.util.concurrent.CopyOnWriteArrayList;
+import android.os.Debug;
+import android.util.Log;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.locks.LockSupport;
+
+import alec.is.awesome.spaceinvaders.core.AlienShip;
+import alec.is.awesome.spaceinvaders.core.FixedStepScheduler;
+import alec.is.awesome.spaceinvaders.core.FrameSnapshot;
+import alec.is.awesome.spaceinvaders.core.GameState;
+import alec.is.awesome.spaceinvaders.core.Histogram;
+import alec.is.awesome.spaceinvaders.core.InputQueue;
+import alec.is.awesome.spaceinvaders.core.ParallelRunner;
+import alec.is.awesome.spaceinvaders.core.ReplayWriter;
+import alec.is.awesome.spaceinvaders.core.SessionRecord;
+import alec.is.awesome.spaceinvaders.core.PerformanceStats;
+import alec.is.awesome.spaceinvaders.core.SnapshotBuffer;
+import alec.is.awesome.spaceinvaders.core.ShipEntity;
+import alec.is.awesome.spaceinvaders.core.Shot;
+import alec.is.awesome.spaceinvaders.core.SpawnDirector;
+import alec.is.awesome.spaceinvaders.core.Sprite;
+import alec.is.awesome.spaceinvaders.core.Viewport;
+import alec.is.awesome.spaceinvaders.core.ViewportService;
+import alec.is.awesome.spaceinvaders.core.World;
 
 /**
  * Created by Alec Krawciw on 2017-05-03.
  */
 
 /**
- * A class that creates a thread that executes rapidly to deal
- * with game play.
+ * A class that creates a thread that steps the game a fixed number of times per second.
+ * The rules of the game live in World, this class only decides when the World is stepped.
+ * Between steps the thread sleeps, and drawing is paced by the GameDisplay separately.
+ *
+ * The loop is always in one of the GameDisplay states (LOADING, MENU, IN_GAME, PAUSED, LOSE
+ * or WIN), or briefly STARTING while a new game is set up (STARTING_PAUSED if the Activity is
+ * paused meanwhile). The states are kept by a GameState, which makes every change with a single
+ * compare and set, so when two threads try to change it at once (a tap starting a game just as
+ * another tap does) only one of them succeeds. One game thread is made the first time a game
+ * starts and is used for every game after that. It only touches the World while IN_GAME or
+ * starting and sleeps the rest of the time, so there is never more than one thread stepping it.
+ * Anything that reads or replaces the whole World from another thread (saving and restoring it)
+ * holds the World's lock, which the game thread also holds while it steps.
  */
 public class GameLoop {
-    private CanvasView cv; //The view that we draw on
-    private List<Entity> enemyEntities; //The list of enemy ships
-    private List<Entity> lasers; //The list of the players shot
-    private ShipEntity player; // The player's ship
-    private boolean isRunning = false; //Flag to tell the gameloop thread to stop executing
+    /**
+     * The number of simulation steps per second used if none is given
+     */
+    public static final int DEFAULT_TICKS_PER_SECOND = 60;
+
+    private static final String TAG = "GameLoop";
+
+    private GameDisplay display; //The view that we draw on
+    private World world; //The state of the game
+    private FixedStepScheduler scheduler; //Decides how many steps to run each time the thread wakes
+    private SnapshotBuffer snapshots; //Hands finished frames to the GameDisplay
+    private ViewportService viewport; //The size of the playing area, updated by the GameDisplay
+    private Viewport lastViewport; //The size the World was last given, only used by whoever is stepping the World
+    private final GameState state = new GameState(GameDisplay.MENU); //RELEASED tells the game thread to finish for good
+    private Thread thread; //The thread that runs every game, made by the first start
+    private PerformanceStats stats; //Timings of the game and the drawing, null unless enableStats is called
+    private File statsDir; //Where the stats are written at the end of each game
+    private ParallelRunner parallel; //Extra threads for stepping very large swarms, null unless enableParallel is called
+    private ReplayWriter replay; //Records the seed and every input of the game, null unless enableReplays is called
+    private File replayDir; //Where each game's replay is written when it ends
+    private ReplayWriter recording; //replay while it is recording the current game, null for a restored game
+    private long ticks = 0; //How many ticks the current game has stepped, only used by the game thread
+    private File[] autosaveFiles; //The two slots the game is saved in every few seconds, null unless enableAutosave is called
+    private long autosaveTicks; //How many ticks between autosaves
+    private MappedByteBuffer[] autosaves = new MappedByteBuffer[2]; //Each slot mapped into memory, so saving is a copy into memory
+    private int autosaveSlot; //The slot holding the newest save
+    private long autosaveCount; //The number of the newest save, larger for every save
+    private volatile boolean waitingForTap = false; //true when a restored game should only carry on when tapped
+    private SessionStore sessions; //Where every finished game is saved, null unless enableSessions is called
+    private Histogram sessionTickTime; //How long each tick of the current game took, for its SessionRecord
+    private int peakEntities; //The most Entities in the World at once this game, only used by the game thread
+    private long gameStartMillis; //When the current game started, only used by the game thread
+    private InputQueue input; //Commands from the player, in the order they happened
+    private long inputNanos = 0; //When the oldest command since the last snapshot happened, only used by the game thread
+    private volatile long inputFrom = Long.MIN_VALUE; //When the tap that started the current game happened, older commands are thrown away
 
 
-    //volatile keyword allows primitive data to be accessed from multiple threads
-    //Read this link for more infomation https://docs.oracle.com/javase/tutorial/essential/concurrency/atomic.html
+    public GameLoop(){
+        this(DEFAULT_TICKS_PER_SECOND);
+    }
 
-    private volatile boolean addShot = false; //Flag to tell the gameloop to add a shot to the game
-    private volatile int numShot = 0; //The number of enemies shot this game
+    /**
+     * Create a game loop that steps the game at the given rate
+     * @param ticksPerSecond How many simulation steps to run every second
+     */
+    public GameLoop(int ticksPerSecond){
+        this(ticksPerSecond, false);
+    }
 
+    /**
+     * Create a game loop that steps the game at the given rate
+     * @param ticksPerSecond How many simulation steps to run every second
+     * @param dataOriented true to store the aliens and shots in arrays rather than objects, see World
+     */
+    public GameLoop(int ticksPerSecond, boolean dataOriented){
+        //Until the display has been measured the size of the screen is the best guess
+        viewport = new ViewportService(MainActivity.getScreenWidth(), MainActivity.getScreenHeight());
+        lastViewport = viewport.get();
+        world = new World(lastViewport.getWidth(), lastViewport.getHeight(), dataOriented);
+        scheduler = new FixedStepScheduler(ticksPerSecond);
+        snapshots = new SnapshotBuffer();
+        input = new InputQueue(256);
+        publishSnapshot();
+    }
 
-    public GameLoop(){
-        //CopyOnWriteArrayList allows the ArrayList to be written to
-        //and read from simultaneously from different threads
-        enemyEntities = new CopyOnWriteArrayList<>();
-        lasers = new CopyOnWriteArrayList<>();
-        player = new ShipEntity();
+    /**
+     * Save the display that we draw on for the game.
+     * @param display The view to be drawn on.
+     */
+    public void registerView(final GameDisplay display){
+        this.display = display;
+        state.setListener(new GameState.Listener() {
+            @Override
+            public void stateChanged(int to) {
+                display.setGameState(to);
+            }
+        });
     }
 
     /**
-     * Save the Canvas that we draw on for the game.
-     * @param cv The canvas view to be drawn on.
+     * The GameDisplay tells this about changes to the size of the playing area
+     * @return The current size of the playing area
      */
-    public void registerView(CanvasView cv){
-        this.cv = cv;
+    public ViewportService getViewport(){
+        return viewport;
     }
 
     /**
-     * The list of enemies
-     * @return The current list of enemy Entities
+     * The frames that the GameDisplay draws from
+     * @return The buffer holding the latest snapshot of the game
      */
-    public List<Entity> getEnemies(){
-        return enemyEntities;
+    public SnapshotBuffer getSnapshots(){
+        return snapshots;
     }
 
     /**
-     * The list of shots
-     * @return The current list of Shots
+     * Start measuring how long ticks and frames take. This costs a little time every tick
+     * so it is off unless asked for. Must be called before the GameDisplay is given this loop.
+     * @param reportDir Where to write the measurements at the end of each game, or null to not write them
      */
-    public List<Entity> getShots(){
-        return lasers;
+    public void enableStats(File reportDir){
+        stats = new PerformanceStats();
+        statsDir = reportDir;
+        //Counts the bytes each thread allocates, read before and after every tick
+        startAllocCounting();
     }
 
-    public Entity getPlayer(){
-        return player;
+    /**
+     * Step the World on more than one thread once there are enough aliens. Only has an effect
+     * if the loop was made with dataOriented set to true. Must be called before start.
+     * @param threads How many threads to use, including the game thread
+     * @param threshold The fewest aliens or shots that are worth splitting between threads
+     */
+    public void enableParallel(int threads, int threshold){
+        if(parallel != null){
+            parallel.shutdown();
+        }//if
+        parallel = new ParallelRunner(threads, threshold);
+        world.setParallelRunner(parallel);
     }
 
     /**
-     * Resets all game variables and clears lists.
+     * Record every game so that it can be played again exactly with Replay.
+     * @param dir Where to write the replay of each game when it ends
      */
-    private void resetGame(){
-        enemyEntities.clear();
-        lasers.clear();
-        player = new ShipEntity();
-        numShot = 0;
+    public void enableReplays(File dir){
+        replay = new ReplayWriter();
+        replayDir = dir;
     }
 
     /**
-     * Sets game variables to necessary values and starts a new Gameloop thread.
+     * Save the score and the timings of every game when it ends. Timing each tick costs very little,
+     * and the saving is done by the store on its own thread. Must be called before start.
+     * @param store Where to save the games
      */
-    public void start(){
-        isRunning = true;
-        resetGame();
-        cv.setGameState(CanvasView.IN_GAME);
+    public void enableSessions(SessionStore store){
+        sessions = store;
+        sessionTickTime = new Histogram("tick time (ns)", 1000000000L);
+    }
+
+    /**
+     * @return Where every finished game is saved, or null if enableSessions was not called
+     */
+    public SessionStore getSessions(){
+        return sessions;
+    }
+
+    /**
+     * Save the game every few seconds, when it is paused and when it ends, so that restoreAutosave can carry
+     * it on even if the process is killed without warning. The files are mapped into memory so each save
+     * is only a copy of the World into memory, which takes well under a millisecond, and the system writes
+     * it to the file in its own time. Saves take turns between two slots, the file and one next to it
+     * with ".1" on the end, so a save cut short by the process being killed never touches the last good one.
+     * Must be called before start.
+     * @param file Where to save the game
+     * @param seconds How many seconds of play between saves
+     */
+    public void enableAutosave(File file, int seconds){
+        autosaveFiles = new File[]{file, new File(file.getPath() + ".1")};
+        autosaveTicks = Math.max(1, seconds * 1000000000L / scheduler.getStepNanos());
+        //Carry on counting from the saves already there, so a new save is always the newest
+        long first = readAutosaveCount(autosaveFiles[0]);
+        long second = readAutosaveCount(autosaveFiles[1]);
+        autosaveSlot = second > first ? 1 : 0;
+        autosaveCount = Math.max(0, Math.max(first, second));
+    }
 
-        //A thread allows you to run two sets of code simultaneously to each other.
-        //to create a new Thread is a Runnable
-        //Recommended reading https://www.tutorialspoint.com/java/java_multithreading.htm
-        new Thread(new Runnable() {
+    /**
+     * Decode every image the game draws in the background, at the sizes they are drawn on this screen.
+     * Until they have loaded the display shows that it is loading and a game cannot be started.
+     * Must be called after the GameDisplay is given this loop.
+     * @param loader Where to decode the images
+     * @param whenLoaded Run once the images have loaded, on a loading thread. May be null.
+     */
+    public void loadAssets(AssetLoader loader, final Runnable whenLoaded){
+        if(!state.transition(GameDisplay.MENU, GameDisplay.LOADING)){
+            return;
+        }//if
+        loader.load(Sprite.PLAYER_SHIP, ShipEntity.dims(world), ShipEntity.dims(world));
+        loader.load(Sprite.ENEMY_SHIP, AlienShip.dims(world), AlienShip.dims(world));
+        loader.load(Sprite.PLAYER_LASER, Shot.width(world), Shot.height(world));
+        loader.load(Sprite.ENEMY_LASER, Shot.width(world), Shot.height(world));
+        loader.whenDone(new Runnable() {
             @Override
             public void run() {
-                while (isRunning){
-
-                    player.update();
-
-                    //If there are any shots update them and check to see if the collide with any entities
-                    if(lasers.size() > 0) {
-                        for (Entity l : lasers) {
-                            l.update();
-                            for (Entity e : enemyEntities) {
-                                e.update();
-
-                                if (e.collidedWith(player)) {
-                                    cv.setGameState(CanvasView.LOSE);
-                                    stop();
-                                }//if
-
-                                if (l.collidedWith(e)) {
-                                    l.collideAction(e);
-                                    e.collideAction(l);
-                                    numShot++;
-                                }//if
-
-                                if (!e.isValid()) {
-                                    enemyEntities.remove(e);
-                                }//if
-
-                                //If the alien has made it to the bottom of the screen they lose
-                                if (e.getHitBox().bottom > MainActivity.getScreenHeight()) {
-                                    cv.setGameState(CanvasView.LOSE);
-                                    stop();
-                                }//if
-                            }//for
-
-                            if (!l.isValid()) {
-                                lasers.remove(l);
-                            }//if
-                        }//for
-                    } else {
-                        //If there are no lasers simply update the aliens without checking
-                        for(Entity l: enemyEntities){
-                            l.update();
-                            if (!l.isValid()) {
-                                enemyEntities.remove(l);
-                            }//if
-                            if (l.getHitBox().bottom > MainActivity.getScreenHeight()) {
-                                cv.setGameState(CanvasView.LOSE);
-                                stop();
-                            }//if
-                        }//for
-                    }//else
-
-                    if(numShot >  50){
-                        cv.setGameState(CanvasView.WIN);
-                        stop();
-                    }//if
-
-                    if(addShot){
-                        lasers.add(new Shot(player.getX() + player.getWidth() / 2, player.getY()));
-                        addShot = false;
-                    }//if
-
-                    if((int)(Math.random() * 600) == 12 && enemyEntities.size() < numShot + 1){
-                        enemyEntities.add(new AlienShip(Math.random() / 2 - 0.25, Math.random() / 2));
-                    }//if
-
-                    //Tell the CanvasView to redraw itself.
-                    //Using invalidate will result in an exception because this executes on another Thread.
-                    //postInvalidate solves this problem
-                    cv.postInvalidate();
-
-                    //Guarantee that the loop does not run so fast that it crashes
-                    try {
-                        Thread.sleep(1);
-                    } catch (InterruptedException e) {
-                        e.printStackTrace();
-                    }//catch
-                }//Runnable
+                state.transition(GameDisplay.LOADING, GameDisplay.MENU);
+                if(whenLoaded != null){
+                    whenLoaded.run();
+                }//if
             }
-        }).start();
+        });
+    }
 
+    /**
+     * @return true while loadAssets is still decoding images
+     */
+    public boolean isLoading(){
+        return state.get() == GameDisplay.LOADING;
     }
 
     /**
-     * Use this to set the ship's speed from the Touch Event
-     * @param vx The speed to move the ship at
+     * Change the waves of aliens. Must be called before start.
+     * @param director The director deciding when aliens appear and how many must be shot to win
      */
-    void moveShip(double vx){
-        player.setVx(vx);
+    public void setSpawnDirector(SpawnDirector director){
+        world.setSpawnDirector(director);
     }
 
     /**
-     * Tells the gameloop to add the shots
+     * @return The measurements of the game and the drawing, or null if enableStats was not called
      */
-    void shootShip(){
-        addShot = true;
+    public PerformanceStats getStats(){
+        return stats;
     }
 
     /**
-     * Tells the the loop to stop running at the end of this loop
+     * The player's commands for the game. Only one thread (the UI thread) may add to it.
+     * @return The queue that the game thread reads at the start of every tick
      */
-    public void stop() {
-        isRunning = false;
+    public InputQueue getInput(){
+        return input;
     }
 
     /**
-     * Tell the Touch Listener whether or not the loops needs to be restarted
-     * @return true if the loop is running, false otherwise
+     * Start a new game from the menu or after a game has ended, or carry on a restored game.
+     * Does nothing if a game is already starting or being played, or the images are still loading,
+     * so it is safe to call on every tap. Must be called from the UI thread.
+     * Commands in the input queue from before the tap (drags and taps on the menu or the end of the last game)
+     * are thrown away, so the new game starts with only the tap that started it.
+     * @param timeNanos When the tap that started the game happened, in System.nanoTime() time
+     * @return true if a game was started or carried on
      */
-    public boolean isRunning(){
-        return isRunning;
+    public boolean start(long timeNanos){
+        int current = state.get();
+        if(current != GameDisplay.MENU && current != GameDisplay.LOSE && current != GameDisplay.WIN && current != GameDisplay.PAUSED){
+            return false;
+        }//if
+        //Set before the game can start so the game thread never reads the last game's time
+        inputFrom = timeNanos;
+        //A restored game is waiting for a tap to carry on
+        if(state.transition(GameDisplay.PAUSED, GameDisplay.IN_GAME)){
+            waitingForTap = false;
+            return wakeThread();
+        }//if
+        if(!state.startGame()){
+            return false;
+        }//if
+        return wakeThread();
     }
 
     /**
-     * Returns the number of aliens shot during this game
-     * @return the number of aliens shot so far.
+     * Wake the game thread, making it if this is the first game, and start drawing
+     * @return false if the loop has been released
      */
-    int getNumAliensShot(){
-        return numShot;
+    private boolean wakeThread(){
+        synchronized (this){
+            if(state.get() == GameState.RELEASED){
+                return false;
+            }//if
+            if(thread == null){
+                //A thread allows you to run two sets of code simultaneously to each other.
+                //to create a new Thread is a Runnable
+                //Recommended reading https://www.tutorialspoint.com/java/java_multithreading.htm
+                thread = new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        runGames();
+                    }
+                }, "GameLoop");
+                thread.start();
+            }//if
+        }//synchronized
+        LockSupport.unpark(thread);
+        display.startRendering();
+        return true;
+    }
+
+    /**
+     * The body of the game thread. Sets up each game that is started, steps it until it ends,
+     * and sleeps whenever there is no game to step.
+     */
+    private void runGames(){
+        scheduler.reset(System.nanoTime());
+        while(state.get() != GameState.RELEASED){
+            int current = state.get();
+            if(current == GameState.STARTING || current == GameState.STARTING_PAUSED){
+                synchronized (world){
+                    beginGame();
+                }//synchronized
+                scheduler.reset(System.nanoTime());
+                //The Activity may pause or resume while the game is set up, whichever it did last wins
+                state.finishStarting();
+                continue;
+            } else if(current != GameDisplay.IN_GAME){
+                //Sleep until a game is started or resumed, then forget the time spent asleep
+                LockSupport.park(this);
+                scheduler.reset(System.nanoTime());
+                continue;
+            }//if
+
+            int steps = scheduler.advance(System.nanoTime());
+            synchronized (world){
+                for(int i = 0; i < steps && state.get() == GameDisplay.IN_GAME; i++){
+                    tick();
+                }//for
+                if(steps > 0){
+                    publishSnapshot();
+                }//if
+            }//synchronized
+
+            //Sleep until the next step is due instead of spinning
+            long wait = scheduler.nanosUntilNextStep(System.nanoTime());
+            if(wait > 0){
+                LockSupport.parkNanos(this, wait);
+            }//if
+        }//while
+    }
+
+    /**
+     * Sets game variables to necessary values for a new game. Only called on the game thread.
+     */
+    private void beginGame(){
+        applyViewport();
+        //Each game gets its own seed so it can be replayed from the seed and the input
+        long seed = System.nanoTime();
+        world.reset(seed);
+        ticks = 0;
+        beginSession();
+        recording = replay;
+        if(recording != null){
+            recording.begin(world, scheduler.getStepNanos());
+        }//if
+        if(stats != null){
+            stats.reset();
+        }//if
+        publishSnapshot();
+    }
+
+    /**
+     * Start measuring a new game for its SessionRecord. The record's duration is the World's simulated time,
+     * so a restored game's start is set back by the time it had already been played. The start and the
+     * duration then describe the same game, leaving out any time spent away from it. The tick times and
+     * the peak entity count only cover the ticks since it was restored.
+     */
+    private void beginSession(){
+        gameStartMillis = System.currentTimeMillis() - world.getElapsedNanos() / 1000000L;
+        peakEntities = 0;
+        if(sessionTickTime != null){
+            sessionTickTime.reset();
+        }//if
+    }
+
+    /**
+     * Start counting the bytes each thread allocates.
+     * Debug's allocation counting is deprecated, but it is the only counter for a single thread.
+     * Its replacement, Debug.getRuntimeStat("art.gc.bytes-allocated"), counts every thread in the
+     * process and makes a new String each time it is read, so a tick would be charged for the
+     * render thread and for reading the counter.
+     */
+    @SuppressWarnings("deprecation")
+    private static void startAllocCounting(){
+        Debug.startAllocCounting();
+    }
+
+    /**
+     * @return The number of bytes the calling thread has allocated since startAllocCounting
+     */
+    @SuppressWarnings("deprecation")
+    private static int threadAllocSize(){
+        return Debug.getThreadAllocSize();
+    }
+
+    /**
+     * Runs one fixed size step of the game
+     */
+    private void tick(){
+        long start = System.nanoTime();
+        int allocated = stats == null ? 0 : threadAllocSize();
+        if(applyViewport() && recording != null){
+            recording.recordResize(ticks, lastViewport.getWidth(), lastViewport.getHeight());
+        }//if
+
+        //Every command since the last tick, in order, so quick taps are never merged or lost
+        while(input.next()){
+            if(input.getTime() < inputFrom){
+                //From before this game was started
+                continue;
+            }//if
+            world.apply(input.getType(), input.getValue());
+            if(recording != null){
+                recording.recordInput(ticks, input.getType(), input.getValue());
+            }//if
+            if(inputNanos == 0){
+                inputNanos = input.getTime();
+            }//if
+            if(stats != null){
+                stats.recordInput(start - input.getTime());
+            }//if
+        }//while
+
+        world.step(scheduler.getStepNanos());
+        ticks++;
+
+        if(stats != null || sessions != null){
+            long nanos = System.nanoTime() - start;
+            int entities = world.getEnemyCount() + world.getShotCount() + world.getEnemyShotCount() + 1;
+            if(stats != null){
+                stats.recordTick(nanos, entities, threadAllocSize() - allocated);
+            }//if
+            if(sessions != null){
+                sessionTickTime.record(nanos);
+                peakEntities = Math.max(peakEntities, entities);
+            }//if
+        }//if
+
+        if(world.getOutcome() != World.IN_PROGRESS){
+            endGame(world.getOutcome() == World.WON ? GameDisplay.WIN : GameDisplay.LOSE);
+        } else if(autosaveFiles != null && ticks % autosaveTicks == 0){
+            saveAutosave();
+        }//if
+    }
+
+    /**
+     * Saves the measurements of the game that just finished to a new file in the stats directory
+     */
+    private void writeStats(){
+        if(stats == null || statsDir == null){
+            return;
+        }//if
+        File file = new File(statsDir, "stats-" + System.currentTimeMillis() + ".txt");
+        PrintWriter out = null;
+        try {
+            out = new PrintWriter(new FileWriter(file));
+            stats.writeTo(out);
+            Log.i(TAG, "Wrote stats to " + file);
+        } catch (IOException e) {
+            Log.e(TAG, "Could not write stats to " + file, e);
+        } finally {
+            if(out != null){
+                out.close();
+            }//if
+        }//finally
+    }
+
+    /**
+     * Saves the replay of the game that just finished to a new file in the replay directory
+     */
+    private void writeReplay(){
+        if(recording == null || replayDir == null){
+            return;
+        }//if
+        recording.finish(ticks);
+        File file = new File(replayDir, "replay-" + System.currentTimeMillis() + ".bin");
+        FileOutputStream out = null;
+        try {
+            out = new FileOutputStream(file);
+            recording.writeTo(out);
+            Log.i(TAG, "Wrote replay to " + file);
+        } catch (IOException e) {
+            Log.e(TAG, "Could not write replay to " + file, e);
+        } finally {
+            if(out != null){
+                try {
+                    out.close();
+                } catch (IOException e) {
+                    Log.e(TAG, "Could not close " + file, e);
+                }//catch
+            }//if
+        }//finally
+    }
+
+    /**
+     * Gives the World the current size of the playing area if it has changed since last time
+     * @return true if the size changed
+     */
+    private boolean applyViewport(){
+        Viewport current = viewport.get();
+        if(current != lastViewport){
+            world.setBounds(current.getWidth(), current.getHeight());
+            lastViewport = current;
+            return true;
+        }//if
+        return false;
+    }
+
+    /**
+     * Copies the current state of the World for the GameDisplay to draw
+     */
+    private void publishSnapshot(){
+        FrameSnapshot frame = snapshots.beginWrite();
+        world.writeSnapshot(frame);
+        frame.setInputNanos(inputNanos);
+        inputNanos = 0;
+        snapshots.publish();
+    }
+
+    /**
+     * Finish the game that was being played. Only called on the game thread.
+     * @param result LOSE or WIN
+     */
+    private void endGame(int result){
+        //The game may have been paused by the UI thread since the tick began, it is over either way
+        if(!state.end(result)){
+            return;
+        }//if
+        if(sessions != null){
+            sessions.record(SessionRecord.of(world, gameStartMillis, peakEntities, sessionTickTime));
+        }//if
+        //A finished game is saved too, so an older unfinished one is not restored later
+        saveAutosave();
+        writeStats();
+        writeReplay();
+    }
+
+    /**
+     * Save the game being played into the older autosave slot now, for example when the Activity is being
+     * stopped. Each slot starts with the number of its save, which is only written once the World has been,
+     * so until then the other slot is still the newest. Does nothing if enableAutosave was not called.
+     */
+    public void saveAutosave(){
+        synchronized (world){
+            if(autosaveFiles == null){
+                return;
+            }//if
+            int slot = 1 - autosaveSlot;
+            int size = 8 + world.getStateSize();
+            try {
+                MappedByteBuffer out = autosaves[slot];
+                if(out == null || out.capacity() < size){
+                    //Grow in powers of two so a growing swarm of aliens only remaps the file a few times
+                    out = map(autosaveFiles[slot], FileChannel.MapMode.READ_WRITE, Math.max(4096, Integer.highestOneBit(size - 1) << 1));
+                    autosaves[slot] = out;
+                }//if
+                out.clear();
+                out.position(8);
+                world.writeState(out);
+                out.putLong(0, autosaveCount + 1);
+                autosaveCount++;
+                autosaveSlot = slot;
+            } catch (IOException e) {
+                Log.e(TAG, "Could not autosave to " + autosaveFiles[slot] + ", autosaving is off", e);
+                autosaveFiles = null;
+                autosaves[0] = null;
+                autosaves[1] = null;
+            }//catch
+        }//synchronized
+    }
+
+    /**
+     * @param file An autosave slot
+     * @return The number of the save in it, or -1 if it has none
+     */
+    private static long readAutosaveCount(File file){
+        if(!file.exists() || file.length() < 8){
+            return -1;
+        }//if
+        try {
+            RandomAccessFile raf = new RandomAccessFile(file, "r");
+            try {
+                return raf.readLong();
+            } finally {
+                raf.close();
+            }//finally
+        } catch (IOException e) {
+            Log.e(TAG, "Could not read " + file, e);
+            return -1;
+        }//catch
+    }
+
+    /**
+     * Carry on the game in the autosave file, if it holds one that had not ended. The game is paused
+     * until the screen is tapped. Does nothing if a game has already been started or the file cannot be read.
+     * Must be called after setSpawnDirector.
+     * @return true if the game was restored
+     */
+    public boolean restoreAutosave(){
+        if(autosaveFiles == null){
+            return false;
+        }//if
+        //The slot with the larger number holds the newest complete save, even if the other was cut short
+        File newest = readAutosaveCount(autosaveFiles[1]) > readAutosaveCount(autosaveFiles[0]) ? autosaveFiles[1] : autosaveFiles[0];
+        if(!newest.exists() || newest.length() < 8){
+            return false;
+        }//if
+        try {
+            MappedByteBuffer in = map(newest, FileChannel.MapMode.READ_ONLY, newest.length());
+            in.position(8);
+            return restoreState(in);
+        } catch (IOException e) {
+            Log.e(TAG, "Could not read " + newest, e);
+            return false;
+        }//catch
+    }
+
+    /**
+     * Map part of a file into memory. The mapping stays valid after the file is closed.
+     * @param file The file, made if it does not exist
+     * @param mode READ_WRITE to grow the file to size if it is smaller, or READ_ONLY
+     * @param size How many bytes from the start of the file to map
+     */
+    private static MappedByteBuffer map(File file, FileChannel.MapMode mode, long size) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, mode == FileChannel.MapMode.READ_ONLY ? "r" : "rw");
+        try {
+            return raf.getChannel().map(mode, 0, size);
+        } finally {
+            raf.close();
+        }//finally
+    }
+
+    /**
+     * Save the game being played, for the Activity to keep in its saved instance state.
+     * Quick enough to call on the UI thread.
+     * @return The state of the World from World.writeState, or null if no game is being played
+     */
+    public byte[] saveState(){
+        synchronized (world){
+            int current = state.get();
+            if((current != GameDisplay.IN_GAME && current != GameDisplay.PAUSED) || world.getOutcome() != World.IN_PROGRESS){
+                return null;
+            }//if
+            ByteBuffer out = ByteBuffer.allocate(world.getStateSize());
+            world.writeState(out);
+            return out.array();
+        }//synchronized
+    }
+
+    /**
+     * Carry on a game saved by saveState or the autosave. Everything is moved in proportion if the
+     * screen is a different size than when it was saved. The game is paused until the screen is tapped.
+     * Does nothing if a game has already been started, or the state is of a game that had ended.
+     * @param in The saved state
+     * @return true if the game was restored
+     */
+    public boolean restoreState(ByteBuffer in){
+        synchronized (world){
+            //Checked while holding the lock, so a game that starts now waits and then replaces this one
+            if(state.get() != GameDisplay.MENU){
+                return false;
+            }//if
+            applyViewport();
+            try {
+                world.readState(in, lastViewport.getWidth(), lastViewport.getHeight());
+            } catch (IllegalArgumentException e) {
+                Log.e(TAG, "Could not restore the game", e);
+                world.reset();
+                return false;
+            }//catch
+            if(world.getOutcome() != World.IN_PROGRESS){
+                world.reset();
+                return false;
+            }//if
+            //A replay must start from the beginning of a game, so a restored game is not recorded
+            recording = null;
+            ticks = 0;
+            beginSession();
+            if(stats != null){
+                stats.reset();
+            }//if
+            publishSnapshot();
+            waitingForTap = true;
+            return state.transition(GameDisplay.MENU, GameDisplay.PAUSED);
+        }//synchronized
+    }
+
+    /**
+     * Puts the game thread to sleep until resume is called. The thread
+     * does not wake up at all while paused. Does nothing unless a game is being played or started;
+     * a game that is still being set up is paused as soon as it is ready.
+     * A paused game is autosaved, since a process in the background is the most likely to be killed.
+     * Called when the Activity is paused.
+     */
+    public void pause() {
+        if(state.pause()){
+            //Wake the thread from its wait for the next step so it goes to sleep for good straight away
+            LockSupport.unpark(thread);
+        }//if
+        if(state.get() == GameState.PAUSED){
+            //Waits for the step being run, if any, to finish
+            saveAutosave();
+        }//if
+    }
+
+    /**
+     * Wakes the game thread after a call to pause. The time spent paused is not simulated:
+     * the thread forgets when it last stepped, so the next step is one normal step after this
+     * and the game carries on smoothly instead of catching up. A restored game stays paused
+     * until the screen is tapped instead. Must be called from the UI thread.
+     */
+    public void resume() {
+        if(state.resume(waitingForTap)){
+            wakeThread();
+        }//if
+    }
+
+    /**
+     * Stop the game and any extra threads, waiting for the game thread to finish. The loop cannot be used afterwards.
+     */
+    public void release(){
+        Thread t;
+        synchronized (this){
+            state.release();
+            t = thread;
+        }//synchronized
+        LockSupport.unpark(t);
+        boolean interrupted = false;
+        while(t != null && t.isAlive()){
+            try {
+                t.join();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }//catch
+        }//while
+        if(interrupted){
+            Thread.currentThread().interrupt();
+        }//if
+        if(parallel != null){
+            parallel.shutdown();
+        }//if
+    }
+
+    /**
+     * @return The current state, one of the GameDisplay states
+     */
+    public int getState() {
+        return state.getShown();
+    }
+
+    /**
+     * @return true if commands given now will reach the game, which is while a game is starting or being played
+     */
+    public boolean isTakingInput() {
+        return state.isTakingInput();
+    }
+
+    /**
+     * @return true if the game is paused
+     */
+    public boolean isPaused() {
+        return state.isPaused();
+    }
+
+    /**
+     * Tell the Touch Listener whether or not the loops needs to be restarted
+     * @return true if a game is starting, being played or paused, false otherwise
+     */
+    public boolean isRunning(){
+        return state.isRunning();
     }
 
 }
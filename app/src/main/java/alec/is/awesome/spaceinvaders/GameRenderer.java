@@ -0,0 +1,214 @@
+package alec.is.awesome.spaceinvaders;
+
+import android.content.ComponentCallbacks2;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+
+import alec.is.awesome.spaceinvaders.core.FrameSnapshot;
+import alec.is.awesome.spaceinvaders.core.Histogram;
+import alec.is.awesome.spaceinvaders.core.PerformanceStats;
+
+/**
+ * Draws one frame of the game onto any Canvas. Both the CanvasView and the
+ * GameSurfaceView use this so the game looks the same whichever one is in use.
+ * Only one thread should draw with a renderer at a time.
+ */
+public class GameRenderer {
+    /**
+     * Contains parameters informing the Canvas how to draw objects.
+     * Use this to modify fonts, stroke style and colour.
+     */
+    private Paint params = new Paint();
+
+    /**
+     * Background colour of the view. By default it is clear
+     * This can be modified here or in the Android colours resources file.
+     * res/values/colours.xml
+     */
+    private int backgroundColour;
+
+    /**
+     * Draws the Entities grouped by their image
+     */
+    private SpriteBatch sprites = new SpriteBatch();
+
+    /**
+     * Stores the current state that the game is in.
+     * It is written by the game thread and read by the drawing thread.
+     */
+    private volatile int gameState = GameDisplay.MENU;
+
+    /**
+     * Where draw times are recorded and the debug overlay reads from, null when not measuring
+     */
+    private PerformanceStats stats;
+
+    /**
+     * Where the best score is read from, null when games are not being saved
+     */
+    private SessionStore sessions;
+
+    /**
+     * The input time of the last frame whose input delay was recorded, so a frame drawn twice is only counted once
+     */
+    private long lastInputNanos = 0;
+
+    /**
+     * Create a renderer
+     * @param backgroundColour The colour drawn behind the game
+     */
+    public GameRenderer(int backgroundColour) {
+        this.backgroundColour = backgroundColour;
+    }
+
+    /**
+     * @param state The new game state to be set
+     */
+    public void setGameState(int state) {
+        gameState = state;
+    }
+
+    /**
+     * Start recording how long each frame takes to draw and show the measurements on screen
+     * @param stats Where to record, or null to stop
+     */
+    public void setStats(PerformanceStats stats) {
+        this.stats = stats;
+    }
+
+    /**
+     * Show the best score of every game saved in the store between games
+     * @param sessions Where the games are saved, or null to not show it
+     */
+    public void setSessions(SessionStore sessions) {
+        this.sessions = sessions;
+    }
+
+    /**
+     * Give back memory when the system is running low. May be called from any thread.
+     * @param level The level passed to onTrimMemory, one of the ComponentCallbacks2.TRIM_MEMORY constants
+     */
+    public void trimMemory(int level) {
+        if(level >= ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN){
+            //The game cannot be seen, so the sprites are copied again when it is next drawn
+            sprites.release();
+        }//if
+    }
+
+    /**
+     * @return The current state of the game
+     */
+    public int getGameState() {
+        return gameState;
+    }
+
+    /**
+     * Draw the background, the Entities and the text for the current game state.
+     * @param c The Canvas object that will be used to draw the game on.
+     * @param width The width of the area being drawn
+     * @param height The height of the area being drawn
+     * @param frame The frame to draw, or null if there is no game yet
+     */
+    public void draw(Canvas c, int width, int height, FrameSnapshot frame) {
+        long start = System.nanoTime();
+        drawBackground(c, width, height);
+        if(frame == null){
+            return;
+        }//if
+
+        //Draw all of the enemies, shots and the player from the latest finished frame.
+        //Not while loading: the sprites would wait on this thread for the images that are still being decoded.
+        int state = gameState;
+        params.setColor(backgroundColour);
+        if(state != GameDisplay.LOADING){
+            sprites.draw(c, frame);
+        }//if
+
+        //Controls which messages are printed to the screen based on the game state
+        if(state == GameDisplay.LOADING){
+            drawCentredText(c, "LOADING...", width, height / 2);
+        } else if(state == GameDisplay.MENU){
+            drawCentredText(c, "PRESS THE SCREEN TO BEGIN", width, height / 2);
+        } else if(state == GameDisplay.LOSE){
+            drawCentredText(c, "YOU LOSE!", width, height / 2);
+            drawCentredText(c, "PRESS THE SCREEN TO BEGIN", width, height / 2 + 60);
+        } else if(state == GameDisplay.WIN){
+            drawCentredText(c, "YOU WIN!", width, height / 2);
+            drawCentredText(c, "PRESS THE SCREEN TO BEGIN", width, height / 2 + 60);
+        } else if(state == GameDisplay.PAUSED){
+            drawCentredText(c, "PAUSED", width, height / 2);
+        } else if(state == GameDisplay.IN_GAME){
+            params.setColor(Color.WHITE);
+            params.setTextSize(30 * width / 1080);
+            c.drawText("Num Kills: " + frame.getNumAliensShot(), 5, 35, params);
+        }
+        if(sessions != null && (state == GameDisplay.MENU || state == GameDisplay.LOSE || state == GameDisplay.WIN)){
+            drawCentredText(c, "BEST: " + sessions.getBestScore(), width, height / 2 + 120);
+        }//if
+
+        PerformanceStats s = stats;
+        if(s != null){
+            //The overlay is not part of the measured time
+            s.recordDraw(System.nanoTime() - start);
+            if(frame.getInputNanos() != 0 && frame.getInputNanos() != lastInputNanos){
+                lastInputNanos = frame.getInputNanos();
+                s.recordInputDrawn(System.nanoTime() - lastInputNanos);
+            }//if
+            drawStats(c, width, s);
+        }//if
+    }
+
+    /**
+     * Debug overlay showing the median, 99th percentile and worst time of the game thread and the
+     * drawing, so a slowdown can be traced to one or the other.
+     */
+    private void drawStats(Canvas c, int width, PerformanceStats s){
+        params.setColor(Color.YELLOW);
+        float size = 24 * width / 1080;
+        params.setTextSize(size);
+        float y = 35 + 2 * size;
+        c.drawText("tick us " + micros(s.getTickTime()), 5, y, params);
+        c.drawText("draw us " + micros(s.getDrawTime()), 5, y + size, params);
+        Histogram e = s.getEntities();
+        c.drawText("entities " + e.getPercentile(50) + " / " + e.getPercentile(99) + " / " + e.getMax(), 5, y + 2 * size, params);
+        Histogram a = s.getTickAllocations();
+        c.drawText("alloc B/tick " + a.getPercentile(50) + " / " + a.getPercentile(99) + " / " + a.getMax(), 5, y + 3 * size, params);
+        c.drawText("input to draw us " + micros(s.getInputToDraw()), 5, y + 4 * size, params);
+        c.drawText("dropped frames " + s.getDroppedFrames(), 5, y + 5 * size, params);
+        params.setColor(backgroundColour);
+    }
+
+    /**
+     * p50 / p99 / max of a histogram of nanoseconds, in microseconds
+     */
+    private static String micros(Histogram h){
+        return h.getPercentile(50) / 1000 + " / " + h.getPercentile(99) / 1000 + " / " + h.getMax() / 1000;
+    }
+
+    /**
+     * Helper method to draw the background which is transparent
+     * @param c The Canvas to be drawn upon
+     */
+    private void drawBackground(Canvas c, int width, int height){
+        params.setStyle(Paint.Style.FILL);
+        params.setColor(backgroundColour);
+        c.drawRect(0, 0, width, height, params);
+    }
+
+    /**
+     * Helper method that writes text centered horizontally
+     * on the screen. Note \n will not work with is method
+     * @param c The canvas to draw on
+     * @param toWrite The text to display
+     * @param width The width of the area being drawn
+     * @param y The vertical location of the text.
+     */
+    private void drawCentredText(Canvas c, String toWrite, int width, int y){
+        params.setColor(Color.WHITE);
+        params.setTextSize(50 * width / 1005);
+        int textWidth = (int) params.measureText(toWrite) / 2;
+        c.drawText(toWrite, width / 2 - textWidth, y, params);
+        params.setColor(backgroundColour);
+    }
+}
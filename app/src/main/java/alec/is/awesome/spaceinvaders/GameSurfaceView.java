@@ -0,0 +1,239 @@
+package alec.is.awesome.spaceinvaders;
+
+import android.content.Context;
+import android.content.res.TypedArray;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.PixelFormat;
+import android.graphics.PorterDuff;
+import android.util.AttributeSet;
+import android.view.Choreographer;
+import android.view.Display;
+import android.view.SurfaceHolder;
+import android.view.SurfaceView;
+
+import java.util.concurrent.locks.LockSupport;
+
+import alec.is.awesome.spaceinvaders.core.PerformanceStats;
+
+/**
+ * A display that draws the game on its own render thread instead of the UI thread.
+ * A SurfaceView has its own drawing surface that any thread can lock, draw on and post,
+ * so drawing never waits behind touch events in the UI thread's queue.
+ * The UI thread's Choreographer still wakes the render thread once per display refresh (vsync)
+ * and the render thread draws the newest FrameSnapshot published by the game loop.
+ */
+public class GameSurfaceView extends SurfaceView implements GameDisplay, SurfaceHolder.Callback, Choreographer.FrameCallback {
+    /**
+     * Draws the game onto the Canvas. Only used by the render thread.
+     */
+    private GameRenderer renderer;
+
+    /**
+     * The game loop managing gameplay
+     */
+    private GameLoop loop;
+
+    /**
+     * The thread that draws on the surface. Only exists while there is a surface.
+     */
+    private volatile Thread renderThread;
+
+    /**
+     * True while the surface exists and can be drawn on
+     */
+    private volatile boolean hasSurface = false;
+
+    /**
+     * Set when a new frame should be drawn, cleared by the render thread when it starts drawing
+     */
+    private volatile boolean frameRequested = false;
+
+    /**
+     * True while a frame callback is waiting for the next vsync. Only used on the UI thread.
+     */
+    private boolean isRendering = false;
+
+    /**
+     * Where dropped frames are counted, null when not measuring. Only used on the UI thread.
+     */
+    private PerformanceStats stats;
+
+    /**
+     * How long one refresh of the display takes
+     */
+    private long refreshNanos = 1000000000L / 60;
+
+    /**
+     * This is the constructor called by the operating system when it inflates the activity.
+     * @param c The current application creating this view
+     * @param attrs Information about the View as written in the xml
+     */
+    public GameSurfaceView(Context c, AttributeSet attrs) {
+        super(c, attrs);
+
+        TypedArray a = c.obtainStyledAttributes(attrs, R.styleable.CanvasView);
+        renderer = new GameRenderer(a.getColor(R.styleable.CanvasView_bColor, Color.argb(1, 0, 0, 0)));
+        a.recycle();
+
+        //Draw on top of the background image with a see through surface
+        setZOrderOnTop(true);
+        getHolder().setFormat(PixelFormat.TRANSLUCENT);
+        getHolder().addCallback(this);
+    }
+
+    /**
+     * This makes the gameloop aware of the view and vice versa
+     * @param g The gameloop that is in use for this game.
+     */
+    @Override
+    public void init(GameLoop g) {
+        g.registerView(this);
+        loop = g;
+        stats = g.getStats();
+        renderer.setStats(stats);
+        renderer.setSessions(g.getSessions());
+        g.getViewport().update(getWidth(), getHeight());
+        setOnTouchListener(new TouchController(g));
+    }
+
+    /**
+     * Starts waking the render thread once per display frame until the game stops.
+     * Must be called from the UI thread.
+     */
+    @Override
+    public void startRendering() {
+        if(!isRendering){
+            isRendering = true;
+            Display display = getDisplay();
+            if(display != null && display.getRefreshRate() > 0){
+                refreshNanos = (long) (1000000000L / display.getRefreshRate());
+            }//if
+            Choreographer.getInstance().postFrameCallback(this);
+        }//if
+    }
+
+    /**
+     * Called by the Choreographer once per display frame while rendering.
+     * @param frameTimeNanos The time the frame started, in System.nanoTime() time
+     */
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        if(stats != null){
+            stats.recordVsync(frameTimeNanos, refreshNanos);
+        }//if
+        requestFrame();
+        if(loop.isRunning() && !loop.isPaused()){
+            Choreographer.getInstance().postFrameCallback(this);
+        } else {
+            isRendering = false;
+            if(stats != null){
+                //The time until rendering starts again is not dropped frames
+                stats.stopVsync();
+            }//if
+        }//if
+    }
+
+    /**
+     * Allow the game loop to let the view know at what state the game is in.
+     * The new state is drawn straight away.
+     * @param state The new game state to be set
+     */
+    @Override
+    public void setGameState(int state) {
+        renderer.setGameState(state);
+        requestFrame();
+    }
+
+    /**
+     * Wake the render thread to draw one frame
+     */
+    private void requestFrame() {
+        frameRequested = true;
+        LockSupport.unpark(renderThread);
+    }
+
+    @Override
+    public void surfaceCreated(SurfaceHolder holder) {
+        hasSurface = true;
+        frameRequested = true;
+        renderThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                renderLoop();
+            }
+        }, "GameRender");
+        renderThread.start();
+    }
+
+    /**
+     * Called when the surface is first sized and whenever it changes size, for example on rotation.
+     * Lets the game know the new size of the playing area.
+     */
+    @Override
+    public void surfaceChanged(SurfaceHolder holder, int format, int width, int height) {
+        if(loop != null){
+            loop.getViewport().update(width, height);
+        }//if
+        requestFrame();
+    }
+
+    /**
+     * The surface must not be touched after this returns, so wait for the render thread to finish.
+     * @param holder The surface that is being destroyed
+     */
+    @Override
+    public void surfaceDestroyed(SurfaceHolder holder) {
+        hasSurface = false;
+        Thread t = renderThread;
+        renderThread = null;
+        LockSupport.unpark(t);
+        boolean interrupted = false;
+        while(t != null && t.isAlive()){
+            try {
+                t.join();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }//catch
+        }//while
+        if(interrupted){
+            Thread.currentThread().interrupt();
+        }//if
+    }
+
+    /**
+     * Runs on the render thread. Sleeps until a frame is requested, then draws the newest
+     * frame from the game loop on the surface.
+     */
+    private void renderLoop() {
+        SurfaceHolder holder = getHolder();
+        while(hasSurface){
+            if(!frameRequested){
+                LockSupport.park(this);
+                continue;
+            }//if
+            frameRequested = false;
+
+            Canvas c = holder.lockCanvas();
+            if(c == null){
+                continue;
+            }//if
+            try {
+                //The surface keeps the last frame, so clear it before drawing on it
+                c.drawColor(Color.TRANSPARENT, PorterDuff.Mode.CLEAR);
+                renderer.draw(c, c.getWidth(), c.getHeight(), loop == null ? null : loop.getSnapshots().acquire());
+            } finally {
+                holder.unlockCanvasAndPost(c);
+            }//finally
+        }//while
+    }
+
+    /**
+     * Drops the copies of the sprites the renderer keeps while the game cannot be seen
+     * @param level The level passed to onTrimMemory, one of the ComponentCallbacks2.TRIM_MEMORY constants
+     */
+    @Override
+    public void trimMemory(int level) {
+        renderer.trimMemory(level);
+    }
+}
@@ -1,45 +1,234 @@
 package alec.is.awesome.spaceinvaders;
 
+import android.content.ComponentCallbacks2;
 import android.graphics.Bitmap;
-import android.util.SparseArray;
+import android.graphics.BitmapFactory;
+import android.util.LruCache;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+import alec.is.awesome.spaceinvaders.core.Sprite;
 
 /**
  * Created by Alec Krawciw on 2017-05-03.
  */
 
 /**
- * A class that stores a copy of the image in RAM and allows all
+ * A class that stores a copy of each image in RAM and allows all
  * Entities of the same type to draw the same image. This takes up
  * far less memory.
+ *
+ * Images are decoded ahead of time by an AssetLoader or else the first time they are asked for, and straight to the size they are
+ * drawn at: the file is shrunk by a power of two while it is decoded and then scaled the rest of the way,
+ * so the full size image never has to fit in memory.
+ * The copies are kept in a cache with a limit in bytes, and the least recently used are dropped
+ * when the limit is reached or the system asks the app to use less memory.
  */
 public class ImageLibrary {
     /**
-     * This stores all of the images that need to be used in the game.
-     * Sparse Arrays work but  haveing indices that are not consecutive.
-     * This allows us to use the Android Resource id as a key, even though we don't know what it will be
+     * The cache holds at most this fraction of the memory the app may use
+     */
+    private static final int CACHE_FRACTION = 32;
+
+    /**
+     * Copies of the images resized to the sizes that the Entities are drawn at.
+     * The key is made from the resource id and the size, see scaledKey.
+     * Every Entity of the same type and size draws the same copy.
+     * The size of each entry is its size in bytes.
      */
-    private static SparseArray<Bitmap> images;
+    private static LruCache<Long, Bitmap> scaledImages;
+
+    /**
+     * Images that are being decoded in the background by load, with the same keys as scaledImages.
+     * Each is removed once it is in scaledImages.
+     */
+    private static final ConcurrentHashMap<Long, Future<Bitmap>> loading = new ConcurrentHashMap<>();
 
     /**
      * Called by the main activity AFTER the resource loader has been initialized.
-     * Calling this before will result in an error
+     * Calling this before will result in an error. Nothing is decoded until it is needed.
      */
     public static void init(){
-        images = new SparseArray<>();
+        int maxBytes = (int) Math.min(Integer.MAX_VALUE, Runtime.getRuntime().maxMemory() / CACHE_FRACTION);
+        scaledImages = new LruCache<Long, Bitmap>(maxBytes) {
+            @Override
+            protected int sizeOf(Long key, Bitmap image) {
+                return image.getByteCount();
+            }
+        };
+    }
+
+    /**
+     * Gets the image for a Sprite resized to the given dimensions.
+     * Each size is only decoded once, after that the same copy is shared until it is dropped from the cache.
+     * If the image is being loaded in the background this waits for it.
+     * The copy may be dropped at any time, so hold on to it only as long as it is being drawn.
+     * @param sprite The Sprite of the Entity being drawn
+     * @param width The width to draw the image at
+     * @param height The height to draw the image at
+     * @return The resized bitmap image
+     * @throws IllegalStateException If the image cannot be decoded
+     */
+    public static Bitmap getImage(Sprite sprite, int width, int height){
+        int resId = getResId(sprite);
+        Long key = scaledKey(resId, width, height);
+        //Checked before the cache because a finished load is put in the cache before it stops being pending
+        Future<Bitmap> pending = loading.get(key);
+        Bitmap scaled = pending != null ? await(pending) : scaledImages.get(key);
+        if(scaled == null){
+            scaled = decode(resId, width, height);
+            scaledImages.put(key, scaled);
+        }
+        return scaled;
+    }
+
+    /**
+     * Start decoding the image for a Sprite in the background. getImage with the same size waits for it
+     * instead of decoding it again.
+     * @param executor The thread or threads to decode on
+     * @param sprite The Sprite that will be drawn
+     * @param width The width it will be drawn at
+     * @param height The height it will be drawn at
+     * @return The decoded image once it is ready. If it cannot be decoded the Future fails with the
+     * IllegalStateException from decode and nothing is cached.
+     */
+    public static Future<Bitmap> load(Executor executor, Sprite sprite, final int width, final int height){
+        final int resId = getResId(sprite);
+        final Long key = scaledKey(resId, width, height);
+        FutureTask<Bitmap> task = new FutureTask<>(new Callable<Bitmap>() {
+            @Override
+            public Bitmap call() {
+                try {
+                    Bitmap image = decode(resId, width, height);
+                    scaledImages.put(key, image);
+                    return image;
+                } finally {
+                    loading.remove(key);
+                }
+            }
+        });
+        loading.put(key, task);
+        executor.execute(task);
+        return task;
+    }
 
-        images.append(R.drawable.background, ResourceLoader.getBitmap(R.drawable.background));
-        images.append(R.drawable.enemyship, ResourceLoader.getBitmap(R.drawable.enemyship));
-        images.append(R.drawable.laserenemy, ResourceLoader.getBitmap(R.drawable.laserenemy));
-        images.append(R.drawable.laserplayer, ResourceLoader.getBitmap(R.drawable.laserplayer));
-        images.append(R.drawable.playership, ResourceLoader.getBitmap(R.drawable.playership));
+    /**
+     * Wait for an image being decoded in the background
+     * @param pending The image being decoded
+     * @return The image, or null if it could not be decoded
+     */
+    private static Bitmap await(Future<Bitmap> pending){
+        boolean interrupted = false;
+        try {
+            while(true){
+                try {
+                    return pending.get();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                } catch (ExecutionException e) {
+                    return null;
+                }
+            }
+        } finally {
+            if(interrupted){
+                Thread.currentThread().interrupt();
+            }
+        }
     }
 
     /**
-     * Gets an image based on the Android resource id
+     * Decode an image at a given size without decoding it at full size first
      * @param resId The android resource id R.drawable.filename
-     * @return The bitmap image of the resource
+     * @param width The width wanted
+     * @param height The height wanted
+     * @return The image at exactly that size
+     * @throws IllegalStateException If the resource is missing or is not an image that can be decoded
+     */
+    private static Bitmap decode(int resId, int width, int height){
+        //Read only the size and type of the image.
+        //The size is chosen here, so the image must not also be scaled for the screen density,
+        //and both passes must agree on that or the sample size is worked out from the wrong size.
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inScaled = false;
+        options.inJustDecodeBounds = true;
+        ResourceLoader.getBitmap(resId, options);
+        if(options.outWidth <= 0 || options.outHeight <= 0){
+            throw new IllegalStateException("Could not read the size of image resource 0x" + Integer.toHexString(resId));
+        }
+
+        //Shrink by the largest power of two that still leaves at least the size wanted
+        int sampleSize = 1;
+        while(options.outWidth / (sampleSize * 2) >= width && options.outHeight / (sampleSize * 2) >= height){
+            sampleSize *= 2;
+        }
+        options.inJustDecodeBounds = false;
+        options.inSampleSize = sampleSize;
+        Bitmap sampled = ResourceLoader.getBitmap(resId, options);
+        if(sampled == null){
+            //Never cached, so the next getImage tries again and fails the same way
+            throw new IllegalStateException("Could not decode image resource 0x" + Integer.toHexString(resId));
+        }
+
+        if(sampled.getWidth() == width && sampled.getHeight() == height){
+            return sampled;
+        }
+        Bitmap scaled = Bitmap.createScaledBitmap(sampled, width, height, false);
+        if(scaled != sampled){
+            sampled.recycle();
+        }
+        return scaled;
+    }
+
+    /**
+     * Give back memory when the system is running low. Called by the Activity's onTrimMemory.
+     * Images that are dropped are decoded again the next time they are needed.
+     * The GameDisplay keeps its own copy of the images it draws, see GameDisplay.trimMemory.
+     * @param level The level passed to onTrimMemory, one of the ComponentCallbacks2.TRIM_MEMORY constants
+     */
+    public static void trimMemory(int level){
+        if(scaledImages == null){
+            return;
+        }
+        if(level >= ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN){
+            //The game cannot be seen, so nothing is being drawn
+            scaledImages.evictAll();
+        } else if(level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW){
+            scaledImages.trimToSize(scaledImages.maxSize() / 2);
+        }
+    }
+
+    /**
+     * Packs a resource id and a size into one number to use as a cache key
+     * @param resId The android resource id R.drawable.filename
+     * @param width The width of the image, less than 65536
+     * @param height The height of the image, less than 65536
+     * @return A key that is different for every resource and size
+     */
+    private static long scaledKey(int resId, int width, int height){
+        return ((long) resId << 32) | ((long) (width & 0xFFFF) << 16) | (height & 0xFFFF);
+    }
+
+    /**
+     * Finds the Android resource used to draw a Sprite
+     * @param sprite The Sprite to look up
+     * @return The android resource id R.drawable.filename
      */
-    public static Bitmap getImage(int resId){
-        return images.get(resId);
+    public static int getResId(Sprite sprite){
+        switch (sprite){
+            case PLAYER_SHIP:
+                return R.drawable.playership;
+            case ENEMY_SHIP:
+                return R.drawable.enemyship;
+            case PLAYER_LASER:
+                return R.drawable.laserplayer;
+            case ENEMY_LASER:
+            default:
+                return R.drawable.laserenemy;
+        }
     }
 }
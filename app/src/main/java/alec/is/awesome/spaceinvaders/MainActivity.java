@@ -2,15 +2,46 @@ package alec.is.awesome.spaceinvaders;
 
 import android.app.Activity;
 import android.content.res.Resources;
-import android.graphics.Rect;
 import android.os.Bundle;
+import android.util.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+
+import alec.is.awesome.spaceinvaders.core.SpawnDirector;
 
 /**
  * This is the main framework of the app. You can do many thnigs with activities
  * but for our purposes we will primarily just use this to start our game loop.
  */
 public class MainActivity extends Activity {
-    private CanvasView gameDisplay;
+    /**
+     * Intent extra that chooses the display at startup. true draws on a GameSurfaceView with its own
+     * render thread, false draws on a CanvasView on the UI thread. The default is in res/values/values.xml
+     */
+    public static final String EXTRA_SURFACE_RENDERER = "surface_renderer";
+
+    /**
+     * Intent extra that plays the waves in res/raw/waves_stress.txt, with thousands of aliens, instead of
+     * the normal res/raw/waves.txt. Best used with data_oriented_world and parallel_world.
+     */
+    public static final String EXTRA_STRESS = "stress";
+
+    /**
+     * The key of the saved game in the saved instance state
+     */
+    private static final String STATE_WORLD = "world";
+
+    /**
+     * The largest saved game kept in the saved instance state. Everything saved by every Activity shares
+     * a 1MB limit, so larger games are only kept in the autosave file.
+     */
+    private static final int MAX_SAVED_STATE = 32 * 1024;
+
+    private GameDisplay gameDisplay;
     private GameLoop gameLoop;
     private static int statusBarHeight = 0;
 
@@ -27,25 +58,152 @@ public class MainActivity extends Activity {
         super.onCreate(savedInstanceState);
 
         //Tells the operating system which xml file you are using
-        setContentView(R.layout.layout_game);
+        boolean useSurface = getIntent().getBooleanExtra(EXTRA_SURFACE_RENDERER, getResources().getBoolean(R.bool.use_surface_renderer));
+        setContentView(useSurface ? R.layout.layout_game_surface : R.layout.layout_game);
 
-        //Load images
+        //Prepare the image cache, the images themselves are loaded in the background below
         ResourceLoader.init(this);
         ImageLibrary.init();
 
         //Create the gameloop
-        gameLoop = new GameLoop();
+        gameLoop = new GameLoop(getResources().getInteger(R.integer.ticks_per_second), getResources().getBoolean(R.bool.data_oriented_world));
+        loadWaves(getIntent().getBooleanExtra(EXTRA_STRESS, false) ? R.raw.waves_stress : R.raw.waves);
+        if(getResources().getBoolean(R.bool.parallel_world)){
+            gameLoop.enableParallel(Runtime.getRuntime().availableProcessors(), getResources().getInteger(R.integer.parallel_threshold));
+        }//if
+        if(getResources().getBoolean(R.bool.record_replays)){
+            //Replays are written to Android/data/<package>/files on the device after every game
+            File dir = getExternalFilesDir(null);
+            gameLoop.enableReplays(dir != null ? dir : getFilesDir());
+        }//if
+        //Every game's score and timings are kept in the app's private files
+        gameLoop.enableSessions(SessionStore.open(getFilesDir()));
+        if(getResources().getBoolean(R.bool.show_debug_hud)){
+            //Timings are written to Android/data/<package>/files on the device after every game
+            File dir = getExternalFilesDir(null);
+            gameLoop.enableStats(dir != null ? dir : getFilesDir());
+        }//if
 
-        //Gets the CanvasView that has already been created
-        gameDisplay = (CanvasView) findViewById(R.id.gameScreen);
+        //Gets the CanvasView or GameSurfaceView that has already been created
+        gameDisplay = (GameDisplay) findViewById(R.id.gameScreen);
         gameDisplay.init(gameLoop);
+        gameLoop.enableAutosave(new File(getFilesDir(), "autosave.bin"), getResources().getInteger(R.integer.autosave_seconds));
+        final byte[] saved = savedInstanceState == null ? null : savedInstanceState.getByteArray(STATE_WORLD);
+
+        //Decode the images on background threads so the first frame does not wait for them
+        AssetLoader assets = new AssetLoader(Runtime.getRuntime().availableProcessors());
+        gameLoop.loadAssets(assets, new Runnable() {
+            @Override
+            public void run() {
+                //Carry on the game that was being played when the Activity was recreated or the process was killed
+                if(saved == null || !gameLoop.restoreState(ByteBuffer.wrap(saved))){
+                    gameLoop.restoreAutosave();
+                }//if
+                //Tells the system (and the startup benchmark) that the game is ready to play
+                runOnUiThread(new Runnable() {
+                    @Override
+                    public void run() {
+                        reportFullyDrawn();
+                    }
+                });
+            }
+        });
+        //The threads finish once the images have loaded
+        assets.shutdown();
 
         //Determines thickness of the top bar, to ensure the screen resizes accordingly
         statusBarHeight = getStatusBarHeight();
     }
 
     /**
-     * Find out how many pixels wide the screen is
+     * Give the game the waves of aliens in a raw resource. If they cannot be read the game keeps
+     * its default waves, which play the same as the original game.
+     * @param id The resource id of a waves file
+     */
+    private void loadWaves(int id) {
+        InputStream in = getResources().openRawResource(id);
+        try {
+            gameLoop.setSpawnDirector(SpawnDirector.read(new InputStreamReader(in, "UTF-8")));
+        } catch (IOException | IllegalArgumentException e) {
+            Log.e("MainActivity", "Could not read the waves", e);
+        } finally {
+            try {
+                in.close();
+            } catch (IOException e) {
+                //Nothing more to do
+            }
+        }
+    }
+
+    /**
+     * Called by the operating system when it wants apps to use less memory
+     * @param level How badly the memory is needed, see ComponentCallbacks2
+     */
+    @Override
+    public void onTrimMemory(int level) {
+        super.onTrimMemory(level);
+        ImageLibrary.trimMemory(level);
+        gameDisplay.trimMemory(level);
+    }
+
+    /**
+     * Called by the operating system when the Activity is no longer in front, for example when the
+     * home button is pressed. The game thread sleeps without waking until onResume and drawing stops,
+     * so a game left in the background uses no CPU. The paused game is autosaved, in case the process
+     * is killed while it is in the background.
+     */
+    @Override
+    protected void onPause() {
+        super.onPause();
+        gameLoop.pause();
+    }
+
+    /**
+     * Called by the operating system when the Activity is back in front.
+     * The game carries on from where it was paused, the time spent in the background is not simulated.
+     */
+    @Override
+    protected void onResume() {
+        super.onResume();
+        gameLoop.resume();
+    }
+
+    /**
+     * Called by the operating system before the Activity may be destroyed, for example when the screen
+     * rotates. The game being played is saved so onCreate can carry it on.
+     * @param outState Where to save it
+     */
+    @Override
+    protected void onSaveInstanceState(Bundle outState) {
+        super.onSaveInstanceState(outState);
+        byte[] state = gameLoop.saveState();
+        if(state != null && state.length <= MAX_SAVED_STATE){
+            outState.putByteArray(STATE_WORLD, state);
+        } else if(state != null){
+            gameLoop.saveAutosave();
+        }//if
+    }
+
+    /**
+     * Called by the operating system when the Activity is finished with
+     */
+    @Override
+    protected void onDestroy() {
+        gameLoop.release();
+        super.onDestroy();
+    }
+
+    /**
+     * @return The game loop, for tests
+     */
+    GameLoop getGameLoop() {
+        return gameLoop;
+    }
+
+    /**
+     * Find out how many pixels wide the screen is.
+     * This asks the system every time so it should not be used while the game is running,
+     * the GameLoop's ViewportService keeps the size of the playing area instead.
      * @return The width of the screen in pixels
      */
     public static int getScreenWidth() {
@@ -53,21 +211,15 @@ public class MainActivity extends Activity {
     }
 
     /**
-     * Find out how many pixels high the screen is
+     * Find out how many pixels high the screen is.
+     * This asks the system every time so it should not be used while the game is running,
+     * the GameLoop's ViewportService keeps the size of the playing area instead.
      * @return The height of the screen in pixels
      */
     public static int getScreenHeight() {
         return Resources.getSystem().getDisplayMetrics().heightPixels - statusBarHeight;
     }
 
-    /**
-     * Gets a rectangle that contains the entire screen
-     * @return
-     */
-    public static Rect getScreenRect() {
-        return new Rect(0, 0, getScreenWidth(), getScreenHeight());
-    }
-
     /**
      * Helper method to find the height of the status bar
      * @return The height of the status bar in pixels
@@ -27,6 +27,17 @@ public class ResourceLoader {
         return BitmapFactory.decodeResource(c.getResources(), resId);
     }
 
+    /**
+     * Finds and Android resource and converts it to a bitmap the way the options ask
+     * @param resId The Android resource R.drawable.filename
+     * @param options How to decode the image, for example at a smaller size.
+     *                With inJustDecodeBounds set only the options are filled in and null is returned.
+     * @return A bitmap image
+     */
+    public static Bitmap getBitmap(int resId, BitmapFactory.Options options){
+        return BitmapFactory.decodeResource(c.getResources(), resId, options);
+    }
+
     /**
      * Finds colours that are stored as resources
      * @param resId The id of the colour R.color.colorname
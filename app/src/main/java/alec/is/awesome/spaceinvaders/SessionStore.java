@@ -0,0 +1,115 @@
+package alec.is.awesome.spaceinvaders;
+
+import android.os.Process;
+import android.util.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+import alec.is.awesome.spaceinvaders.core.SessionLog;
+import alec.is.awesome.spaceinvaders.core.SessionRecord;
+
+/**
+ * Keeps the SessionLog of every game played, writing to it on a background thread so the game thread
+ * only ever adds a record to a queue. Records that arrive while the thread is busy are written
+ * together and flushed to the storage once, so a burst of games costs one flush.
+ * There is one store for the whole process, so a recreated Activity never has two writers on one log.
+ */
+public class SessionStore {
+    private static final String TAG = "SessionStore";
+    private static SessionStore instance;
+
+    private final ExecutorService writer;
+    private final ConcurrentLinkedQueue<SessionRecord> pending = new ConcurrentLinkedQueue<>();
+    private SessionLog log; //Only used on the writer thread, null if it could not be opened
+    private volatile int bestScore = 0; //The highest score in the log, for drawing
+
+    /**
+     * Get the store, opening the log in the background the first time
+     * @param dir Where the log and its index are kept
+     * @return The store for this process
+     */
+    public static synchronized SessionStore open(File dir) {
+        if(instance == null){
+            instance = new SessionStore(dir);
+        }//if
+        return instance;
+    }
+
+    private SessionStore(final File dir) {
+        writer = Executors.newSingleThreadExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(final Runnable r) {
+                Thread t = new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                        r.run();
+                    }
+                }, TAG);
+                t.setDaemon(true);
+                return t;
+            }
+        });
+        writer.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    log = new SessionLog(new File(dir, "sessions.log"), new File(dir, "sessions.idx"));
+                    bestScore = log.getBestScore();
+                } catch (IOException e) {
+                    Log.e(TAG, "Could not open the session log, games will not be saved", e);
+                }//catch
+            }
+        });
+    }
+
+    /**
+     * Save a game that has ended. Never blocks or touches the storage, so it is safe on the game thread.
+     * @param record The game
+     */
+    public void record(SessionRecord record) {
+        pending.offer(record);
+        writer.execute(new Runnable() {
+            @Override
+            public void run() {
+                writePending();
+            }
+        });
+    }
+
+    /**
+     * Write every record that is waiting, then flush them all at once. Only called on the writer thread.
+     */
+    private void writePending() {
+        if(pending.isEmpty()){
+            //Already written with an earlier batch
+            return;
+        }//if
+        SessionRecord record;
+        try {
+            while((record = pending.poll()) != null){
+                if(log != null){
+                    log.append(record);
+                }//if
+            }//while
+            if(log != null){
+                log.flush();
+                bestScore = log.getBestScore();
+            }//if
+        } catch (IOException e) {
+            Log.e(TAG, "Could not save a game to the session log", e);
+        }//catch
+    }
+
+    /**
+     * @return The highest score of any game saved so far, or 0 before the log has been opened
+     */
+    public int getBestScore() {
+        return bestScore;
+    }
+}
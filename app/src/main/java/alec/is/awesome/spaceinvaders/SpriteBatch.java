@@ -0,0 +1,238 @@
+package alec.is.awesome.spaceinvaders;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapShader;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.graphics.Shader;
+
+import alec.is.awesome.spaceinvaders.core.FrameSnapshot;
+import alec.is.awesome.spaceinvaders.core.Sprite;
+
+/**
+ * Draws every Entity in a FrameSnapshot grouped by Sprite.
+ * All of the sprites are copied side by side into one bitmap (an atlas) at the size they are
+ * drawn at, so every Entity is drawn from the same image with one Paint per Sprite.
+ * On a software Canvas (such as a SurfaceView) each Sprite is drawn in a single drawVertices call.
+ * Hardware accelerated Canvases do not support drawVertices on older versions of Android, so there
+ * each Entity is drawn from the atlas in a row, which the renderer can merge because they share a bitmap.
+ * Nothing is allocated while drawing unless the sprite sizes change (for example on rotation).
+ * Drawing and release hold this object's lock, so release may be called from any thread.
+ */
+public class SpriteBatch {
+    private static final Sprite[] SPRITES = Sprite.values();
+
+    /**
+     * Largest number of Entities drawn in one drawVertices call. Each uses 4 vertices
+     * and the vertex indices are shorts, so no more than 32767 vertices fit in a call.
+     */
+    private static final int MAX_QUADS = 32767 / 4;
+
+    private Bitmap atlas; //Every sprite side by side
+    private Rect[] regions = new Rect[SPRITES.length]; //Where each sprite is in the atlas
+    private Paint[] paints = new Paint[SPRITES.length]; //One paint per sprite, all drawing from the atlas
+
+    private int[][] drawLists = new int[SPRITES.length][64]; //The index in the frame of each Entity, by sprite
+    private int[] drawCounts = new int[SPRITES.length];
+
+    private Rect dst = new Rect(); //Reused for every Entity drawn on a hardware Canvas
+    private float[] verts = new float[0];
+    private float[] texs = new float[0];
+    private short[] indices = new short[0];
+
+    /**
+     * Draw every Entity in a frame
+     * @param c The Canvas to draw on
+     * @param frame The frame to draw
+     */
+    public synchronized void draw(Canvas c, FrameSnapshot frame) {
+        sort(frame);
+        for (int s = 0; s < SPRITES.length; s++) {
+            if (drawCounts[s] == 0) {
+                continue;
+            }//if
+            int first = drawLists[s][0];
+            if (!atlasFits(s, frame.getWidth(first), frame.getHeight(first))) {
+                buildAtlas(frame);
+            }//if
+            if (regions[s] == null) {
+                //Too small to see
+                continue;
+            }//if
+
+            if (c.isHardwareAccelerated()) {
+                drawEach(c, frame, s);
+            } else {
+                drawBatched(c, frame, s);
+            }//if
+        }//for
+    }
+
+    /**
+     * Let go of the atlas so its memory can be given back. It is built again the next time anything is drawn.
+     */
+    public synchronized void release() {
+        //Not recycled because a hardware Canvas may still be drawing it
+        atlas = null;
+        for (int s = 0; s < SPRITES.length; s++) {
+            regions[s] = null;
+            paints[s] = null;
+        }//for
+    }
+
+    /**
+     * Split the Entities in the frame into one list per Sprite
+     */
+    private void sort(FrameSnapshot frame) {
+        for (int s = 0; s < SPRITES.length; s++) {
+            drawCounts[s] = 0;
+        }//for
+        for (int i = 0; i < frame.size(); i++) {
+            int s = frame.getSprite(i).ordinal();
+            if (drawCounts[s] == drawLists[s].length) {
+                int[] bigger = new int[drawCounts[s] * 2];
+                System.arraycopy(drawLists[s], 0, bigger, 0, drawCounts[s]);
+                drawLists[s] = bigger;
+            }//if
+            drawLists[s][drawCounts[s]++] = i;
+        }//for
+    }
+
+    /**
+     * Check if the atlas already holds a sprite at the given size
+     */
+    private boolean atlasFits(int s, int width, int height) {
+        if (width <= 0 || height <= 0) {
+            return atlas != null && regions[s] == null;
+        }//if
+        return atlas != null && regions[s] != null && regions[s].width() == width && regions[s].height() == height;
+    }
+
+    /**
+     * Copy every sprite into a new atlas at the size that the frame draws it.
+     * Sprites that are not in the frame keep the size they had before.
+     */
+    private void buildAtlas(FrameSnapshot frame) {
+        int[] widths = new int[SPRITES.length];
+        int[] heights = new int[SPRITES.length];
+        for (int s = 0; s < SPRITES.length; s++) {
+            if (drawCounts[s] > 0) {
+                widths[s] = frame.getWidth(drawLists[s][0]);
+                heights[s] = frame.getHeight(drawLists[s][0]);
+            } else if (regions[s] != null) {
+                widths[s] = regions[s].width();
+                heights[s] = regions[s].height();
+            }//if
+        }//for
+
+        //Lay the sprites out in a row with a pixel between them so they do not bleed into each other
+        int atlasWidth = 1;
+        int atlasHeight = 1;
+        for (int s = 0; s < SPRITES.length; s++) {
+            atlasWidth += widths[s] + 1;
+            atlasHeight = Math.max(atlasHeight, heights[s]);
+        }//for
+        Bitmap newAtlas = Bitmap.createBitmap(atlasWidth, atlasHeight, Bitmap.Config.ARGB_8888);
+        Canvas atlasCanvas = new Canvas(newAtlas);
+        BitmapShader shader = new BitmapShader(newAtlas, Shader.TileMode.CLAMP, Shader.TileMode.CLAMP);
+
+        int x = 0;
+        for (int s = 0; s < SPRITES.length; s++) {
+            if (widths[s] > 0 && heights[s] > 0) {
+                atlasCanvas.drawBitmap(ImageLibrary.getImage(SPRITES[s], widths[s], heights[s]), x, 0, null);
+                regions[s] = new Rect(x, 0, x + widths[s], heights[s]);
+            } else {
+                regions[s] = null;
+            }//if
+            x += widths[s] + 1;
+
+            paints[s] = new Paint();
+            paints[s].setShader(shader);
+        }//for
+
+        //The old atlas is not recycled because a hardware Canvas may still be drawing it
+        atlas = newAtlas;
+    }
+
+    /**
+     * Draw each Entity of one Sprite straight from the atlas
+     */
+    private void drawEach(Canvas c, FrameSnapshot frame, int s) {
+        Rect src = regions[s];
+        Paint paint = paints[s];
+        int[] list = drawLists[s];
+        for (int n = 0; n < drawCounts[s]; n++) {
+            int i = list[n];
+            int x = (int) frame.getX(i);
+            int y = (int) frame.getY(i);
+            dst.set(x, y, x + src.width(), y + src.height());
+            c.drawBitmap(atlas, src, dst, paint);
+        }//for
+    }
+
+    /**
+     * Draw every Entity of one Sprite as textured triangles in as few calls as possible
+     */
+    private void drawBatched(Canvas c, FrameSnapshot frame, int s) {
+        Rect src = regions[s];
+        Paint paint = paints[s];
+        int[] list = drawLists[s];
+        int count = drawCounts[s];
+        ensureCapacity(Math.min(count, MAX_QUADS));
+
+        for (int start = 0; start < count; start += MAX_QUADS) {
+            int quads = Math.min(MAX_QUADS, count - start);
+            for (int q = 0; q < quads; q++) {
+                int i = list[start + q];
+                float left = (int) frame.getX(i);
+                float top = (int) frame.getY(i);
+                int v = q * 8;
+                //Corners in the order top left, top right, bottom right, bottom left
+                verts[v] = left;
+                verts[v + 1] = top;
+                verts[v + 2] = left + src.width();
+                verts[v + 3] = top;
+                verts[v + 4] = left + src.width();
+                verts[v + 5] = top + src.height();
+                verts[v + 6] = left;
+                verts[v + 7] = top + src.height();
+
+                texs[v] = src.left;
+                texs[v + 1] = src.top;
+                texs[v + 2] = src.right;
+                texs[v + 3] = src.top;
+                texs[v + 4] = src.right;
+                texs[v + 5] = src.bottom;
+                texs[v + 6] = src.left;
+                texs[v + 7] = src.bottom;
+            }//for
+            c.drawVertices(Canvas.VertexMode.TRIANGLES, quads * 8, verts, 0, texs, 0, null, 0, indices, 0, quads * 6, paint);
+        }//for
+    }
+
+    /**
+     * Make sure the vertex arrays can hold the given number of quads.
+     * The indices never change so they are only filled in when the arrays grow.
+     */
+    private void ensureCapacity(int quads) {
+        if (verts.length >= quads * 8) {
+            return;
+        }//if
+        int size = Math.min(MAX_QUADS, Math.max(quads, verts.length / 4));
+        verts = new float[size * 8];
+        texs = new float[size * 8];
+        indices = new short[size * 6];
+        for (int q = 0; q < size; q++) {
+            short v = (short) (q * 4);
+            int n = q * 6;
+            //Two triangles per quad
+            indices[n] = v;
+            indices[n + 1] = (short) (v + 1);
+            indices[n + 2] = (short) (v + 2);
+            indices[n + 3] = v;
+            indices[n + 4] = (short) (v + 2);
+            indices[n + 5] = (short) (v + 3);
+        }//for
+    }
+}
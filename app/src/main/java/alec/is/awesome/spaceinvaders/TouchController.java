@@ -0,0 +1,128 @@
+package alec.is.awesome.spaceinvaders;
+
+import android.view.MotionEvent;
+import android.view.View;
+
+import alec.is.awesome.spaceinvaders.core.InputQueue;
+
+/**
+ * Turns touches on the game's View into commands for the GameLoop.
+ * Shared by every kind of GameDisplay. Touches arrive on the UI thread, so nothing here reads
+ * or changes the World directly, commands are queued for the game thread instead.
+ *
+ * The first finger down steers: the ship follows it while it is dragged. Every other finger
+ * that touches the screen fires a shot, and so does the steering finger when it first touches.
+ */
+public class TouchController implements View.OnTouchListener {
+    /**
+     * Used for steeringPointer when no finger is steering
+     */
+    private static final int NO_POINTER = -1;
+
+    /**
+     * Shortest time between two shots, in milliseconds
+     */
+    private static final long SHOT_DELAY = 400;
+
+    /**
+     * The game loop managing gameplay
+     */
+    private GameLoop loop;
+
+    /**
+     * The last time that a touch event occurred
+     */
+    private long lastTouchTime = 0;
+
+    /**
+     * The last time that the user took a shot
+     */
+    private long lastShootTime = 0;
+
+    /**
+     * The id of the finger that is steering the ship
+     */
+    private int steeringPointer = NO_POINTER;
+
+    /**
+     * @param loop The game loop the touches control
+     */
+    public TouchController(GameLoop loop) {
+        this.loop = loop;
+    }
+
+    /**
+     * Method that deals with input coming via the phone's touchscreen.
+     * Look at MotionEvent for more information. For multi-touch enabled devices the second
+     * touch is not an ACTION_DOWN event but rather an ACTION_POINTER_DOWN event, and every finger
+     * that is down moves in the same ACTION_MOVE event.
+     * @param v The view from which the touch event originated
+     * @param event Information about the event eg. location of click
+     * @return True if this is the last view that should be aware of the event false otherwise
+     */
+    @Override
+    public boolean onTouch(View v, MotionEvent event) {
+        int action = event.getActionMasked();
+        //MotionEvent times are in SystemClock.uptimeMillis(), which uses the same clock as System.nanoTime()
+        long time = event.getEventTime() * 1000000L;
+
+        //If the game loop is not running that means that we should start the game.
+        //start does nothing if a game is already running or the images are loading.
+        if(action == MotionEvent.ACTION_DOWN && System.currentTimeMillis() - lastTouchTime > 1000){
+            loop.start(time);
+        }
+
+        InputQueue input = loop.getInput();
+        if (!loop.isTakingInput()) {
+            //Nothing reads the queue between games, so touches on the menu would only fill it up
+            steeringPointer = NO_POINTER;
+        } else if (action == MotionEvent.ACTION_DOWN) {
+            steeringPointer = event.getPointerId(0);
+            input.offer(InputQueue.STEER, event.getX(0), time);
+            fire(input, time);
+        } else if (action == MotionEvent.ACTION_POINTER_DOWN) {
+            fire(input, time);
+        } else if (action == MotionEvent.ACTION_MOVE) {
+            steer(event, input);
+        } else if (action == MotionEvent.ACTION_POINTER_UP) {
+            if (event.getPointerId(event.getActionIndex()) == steeringPointer) {
+                steeringPointer = NO_POINTER;
+                input.offer(InputQueue.STOP, 0, time);
+            }
+        } else if (action == MotionEvent.ACTION_UP || action == MotionEvent.ACTION_CANCEL) {
+            steeringPointer = NO_POINTER;
+            input.offer(InputQueue.STOP, 0, time);
+        }
+
+        lastTouchTime = System.currentTimeMillis();
+        return true;
+    }
+
+    /**
+     * Follow the steering finger. Android batches the moves that happened since the last event
+     * into its history, so every one of them is sent in order rather than only the newest.
+     */
+    private void steer(MotionEvent event, InputQueue input) {
+        if (steeringPointer == NO_POINTER) {
+            return;
+        }
+        int index = event.findPointerIndex(steeringPointer);
+        if (index < 0) {
+            return;
+        }
+        for (int h = 0; h < event.getHistorySize(); h++) {
+            input.offer(InputQueue.STEER, event.getHistoricalX(index, h), event.getHistoricalEventTime(h) * 1000000L);
+        }
+        input.offer(InputQueue.STEER, event.getX(index), event.getEventTime() * 1000000L);
+    }
+
+    /**
+     * Fire a shot unless one was fired too recently
+     */
+    private void fire(InputQueue input, long time) {
+        if(System.currentTimeMillis() - lastShootTime > SHOT_DELAY){
+            input.offer(InputQueue.FIRE, 0, time);
+            lastShootTime = System.currentTimeMillis();
+        }
+    }
+}
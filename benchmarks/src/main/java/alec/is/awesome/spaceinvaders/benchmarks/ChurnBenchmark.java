@@ -0,0 +1,83 @@
+package alec.is.awesome.spaceinvaders.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+import alec.is.awesome.spaceinvaders.core.AlienShip;
+import alec.is.awesome.spaceinvaders.core.EntityList;
+import alec.is.awesome.spaceinvaders.core.EntityPool;
+import alec.is.awesome.spaceinvaders.core.World;
+
+/**
+ * Measures killing and spawning aliens through an EntityList and an EntityPool,
+ * the way the World does when a wave of aliens is shot and replaced.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChurnBenchmark {
+    @Param({"1000", "10000"})
+    public int aliens;
+
+    /**
+     * How many aliens out of every hundred are killed and replaced each invocation
+     */
+    @Param({"1", "10", "50"})
+    public int percent;
+
+    private World world;
+    private EntityList list;
+    private EntityPool<AlienShip> pool;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        world = new World(1080, 1920);
+        pool = new EntityPool<AlienShip>(aliens) {
+            @Override
+            protected AlienShip create() {
+                return new AlienShip(world);
+            }
+        };
+        list = new EntityList(aliens);
+        for (int i = 0; i < aliens; i++) {
+            list.add(pool.obtain());
+        }
+    }
+
+    @Benchmark
+    public int churn() {
+        int kills = aliens * percent / 100;
+        //Kill aliens spread through the list, like shots hitting a swarm
+        for (int k = 0; k < kills; k++) {
+            next = (next + 7919) % list.size();
+            list.get(next).collideAction(null);
+        }
+        for (int i = list.size() - 1; i >= 0; i--) {
+            if (!list.get(i).isValid()) {
+                pool.free((AlienShip) list.removeAt(i));
+            }
+        }
+        while (list.size() < aliens) {
+            AlienShip alien = pool.obtain();
+            alien.reset(0.1, 0.1);
+            list.add(alien);
+        }
+        return list.size();
+    }
+}
@@ -0,0 +1,103 @@
+package alec.is.awesome.spaceinvaders.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import alec.is.awesome.spaceinvaders.core.AlienShip;
+import alec.is.awesome.spaceinvaders.core.Entity;
+import alec.is.awesome.spaceinvaders.core.EntityList;
+import alec.is.awesome.spaceinvaders.core.Shot;
+import alec.is.awesome.spaceinvaders.core.SpatialHash;
+import alec.is.awesome.spaceinvaders.core.World;
+
+/**
+ * Measures finding which shots hit which aliens, without moving anything or removing what was hit.
+ * grid is the broadphase the World uses, bruteForce checks every pair for comparison.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CollisionBenchmark {
+    @Param({"100", "1000", "10000"})
+    public int aliens;
+
+    @Param({"10", "100", "500"})
+    public int shots;
+
+    private World world;
+    private EntityList alienList;
+    private EntityList shotList;
+    private SpatialHash grid;
+    private List<Entity> candidates = new ArrayList<>();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        world = new World(1080, 1920);
+        Random r = new Random(7);
+        alienList = new EntityList(aliens);
+        for (int i = 0; i < aliens; i++) {
+            AlienShip alien = new AlienShip(world, 0, 0);
+            alien.setY(r.nextInt(world.getHeight()));
+            alien.update(0);
+            alienList.add(alien);
+        }
+        shotList = new EntityList(shots);
+        for (int i = 0; i < shots; i++) {
+            Shot shot = new Shot(world, r.nextInt(world.getWidth()), r.nextInt(world.getHeight()));
+            shotList.add(shot);
+        }
+        grid = new SpatialHash(2 * AlienShip.dims(world));
+    }
+
+    @Benchmark
+    public int grid() {
+        int hits = 0;
+        grid.clear();
+        for (int i = 0; i < alienList.size(); i++) {
+            grid.insert(alienList.get(i));
+        }
+        for (int i = 0; i < shotList.size(); i++) {
+            Entity l = shotList.get(i);
+            candidates.clear();
+            grid.query(l.getHitBox(), candidates);
+            for (int j = 0; j < candidates.size(); j++) {
+                if (l.collidedWith(candidates.get(j))) {
+                    hits++;
+                }
+            }
+        }
+        return hits;
+    }
+
+    @Benchmark
+    public int bruteForce() {
+        int hits = 0;
+        for (int i = 0; i < shotList.size(); i++) {
+            Entity l = shotList.get(i);
+            for (int j = 0; j < alienList.size(); j++) {
+                if (l.collidedWith(alienList.get(j))) {
+                    hits++;
+                }
+            }
+        }
+        return hits;
+    }
+}
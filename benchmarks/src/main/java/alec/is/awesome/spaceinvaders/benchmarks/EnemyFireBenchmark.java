@@ -0,0 +1,79 @@
+package alec.is.awesome.spaceinvaders.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+import alec.is.awesome.spaceinvaders.core.FrameSnapshot;
+import alec.is.awesome.spaceinvaders.core.World;
+
+/**
+ * Measures one full tick with the screen full of enemy shots, like TickBenchmark.
+ * A row of aliens on the left of the screen keeps firing so that the number of enemy shots in the air
+ * stays the same, and the player waits on the right where they cannot be hit.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EnemyFireBenchmark {
+    private static final long DT = 1000000000L / 60;
+    private static final int ALIENS = 100;
+
+    @Param({"100", "1000", "10000"})
+    public int shots;
+
+    /**
+     * Whether the World stores the aliens and shots as Entity objects or in Swarms of arrays
+     */
+    @Param({"false", "true"})
+    public boolean dataOriented;
+
+    private World world;
+    private FrameSnapshot frame;
+    private int nextAlien;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        world = new World(1080, 1920, dataOriented);
+        frame = new FrameSnapshot();
+        for (int i = 0; i < ALIENS; i++) {
+            world.spawnAlien(i * 0.4 / ALIENS, 0, 0);
+        }
+        world.steerTowards(1080);
+        for (int t = 0; t < 120; t++) {
+            world.step(DT);
+        }
+        topUp();
+    }
+
+    @Benchmark
+    public FrameSnapshot tick() {
+        world.step(DT);
+        topUp();
+        world.writeSnapshot(frame);
+        return frame;
+    }
+
+    /**
+     * Replace the shots that left the screen, firing from each alien in turn
+     */
+    private void topUp() {
+        for (int i = world.getEnemyShotCount(); i < shots; i++) {
+            world.fireEnemyShot(nextAlien++ % ALIENS);
+        }
+    }
+}
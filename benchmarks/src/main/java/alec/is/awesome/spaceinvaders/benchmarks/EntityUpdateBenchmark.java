@@ -0,0 +1,61 @@
+package alec.is.awesome.spaceinvaders.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+import alec.is.awesome.spaceinvaders.core.AlienShip;
+import alec.is.awesome.spaceinvaders.core.Entity;
+import alec.is.awesome.spaceinvaders.core.Shot;
+import alec.is.awesome.spaceinvaders.core.World;
+
+/**
+ * Measures Entity.update on its own: moving, updating the hitbox and checking the edges of the screen.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EntityUpdateBenchmark {
+    private static final double DT = 1000.0 / 60;
+
+    private World world;
+    private Entity alien;
+    private Entity shot;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        world = new World(1080, 1920);
+        //Bounces from side to side forever
+        alien = new AlienShip(world, 0.3, 0);
+        shot = new Shot(world, 500, 1000);
+    }
+
+    @Benchmark
+    public Entity alien() {
+        alien.update(DT);
+        return alien;
+    }
+
+    @Benchmark
+    public Entity shot() {
+        shot.update(DT);
+        //Keep the shot on screen so every update does the same work
+        if (shot.getY() < 0) {
+            shot.setY(1000);
+        }
+        return shot;
+    }
+}
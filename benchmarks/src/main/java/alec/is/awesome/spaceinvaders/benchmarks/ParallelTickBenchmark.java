@@ -0,0 +1,76 @@
+package alec.is.awesome.spaceinvaders.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+import alec.is.awesome.spaceinvaders.core.ParallelRunner;
+import alec.is.awesome.spaceinvaders.core.World;
+
+/**
+ * Measures how a data oriented World's tick scales with the number of threads stepping it.
+ * The swarm is kept the same size by replacing the aliens that are shot, like TickBenchmark.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParallelTickBenchmark {
+    private static final long DT = 1000000000L / 60;
+
+    @Param({"10000", "50000"})
+    public int aliens;
+
+    @Param({"1", "2", "4", "8"})
+    public int threads;
+
+    private World world;
+    private ParallelRunner runner;
+    private int tick;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        world = new World(1080, 1920, true);
+        runner = new ParallelRunner(threads, 1000);
+        world.setParallelRunner(runner);
+        topUp();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        runner.shutdown();
+    }
+
+    @Benchmark
+    public int tick() {
+        if (tick++ % 5 == 0) {
+            world.fireShot();
+        }
+        world.step(DT);
+        topUp();
+        return world.getNumAliensShot();
+    }
+
+    /**
+     * Replace the aliens that were shot. They only move sideways so they never reach the bottom.
+     */
+    private void topUp() {
+        for (int i = world.getEnemyCount(); i < aliens; i++) {
+            world.spawnAlien(((i % 9) - 4) / 20.0, 0);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package alec.is.awesome.spaceinvaders.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import alec.is.awesome.spaceinvaders.core.Replay;
+import alec.is.awesome.spaceinvaders.core.ReplayWriter;
+import alec.is.awesome.spaceinvaders.core.World;
+
+/**
+ * Measures playing a whole recorded game without a screen. Every run of the same replay does exactly
+ * the same work, so this is a repeatable workload. Pass a replay saved by the app with
+ * -PjmhInclude=Replay and "-p file=path/to/replay.bin", otherwise a made up game is recorded and played.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReplayBenchmark {
+    private static final long STEP = 1000000000L / 60;
+
+    /**
+     * A replay file to play, or empty to record a made up game
+     */
+    @Param({""})
+    public String file;
+
+    private Replay replay;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        if (file.isEmpty()) {
+            replay = new Replay(record());
+        } else {
+            FileInputStream in = new FileInputStream(file);
+            try {
+                replay = Replay.read(in);
+            } finally {
+                in.close();
+            }
+        }
+    }
+
+    @Benchmark
+    public World play() {
+        return replay.play();
+    }
+
+    /**
+     * Two minutes of a player tapping at random, the same every time
+     */
+    private static byte[] record() {
+        World world = new World(1080, 1920);
+        ReplayWriter writer = new ReplayWriter();
+        world.reset(42);
+        writer.begin(world, STEP);
+        Random input = new Random(42);
+        long tick = 0;
+        for (; tick < 60 * 120 && world.getOutcome() == World.IN_PROGRESS; tick++) {
+            if (input.nextInt(20) == 0) {
+                int type = input.nextInt(3);
+                double value = input.nextFloat() * world.getWidth();
+                world.apply(type, value);
+                writer.recordInput(tick, type, value);
+            }
+            world.step(STEP);
+        }
+        writer.finish(tick);
+        return writer.toByteArray();
+    }
+}
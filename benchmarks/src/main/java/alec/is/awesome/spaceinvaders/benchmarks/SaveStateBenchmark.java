@@ -0,0 +1,72 @@
+package alec.is.awesome.spaceinvaders.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import alec.is.awesome.spaceinvaders.core.World;
+
+/**
+ * Measures saving and restoring a whole World, which GameLoop does every few seconds for the autosave
+ * and MainActivity does when the screen rotates. Both should take far less than one frame.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SaveStateBenchmark {
+    @Param({"100", "10000"})
+    public int aliens;
+
+    /**
+     * Whether the World stores the aliens and shots as Entity objects or in Swarms of arrays
+     */
+    @Param({"false", "true"})
+    public boolean dataOriented;
+
+    private World world;
+    private World restored;
+    private ByteBuffer state;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        world = new World(1080, 1920, dataOriented);
+        restored = new World(1080, 1920, dataOriented);
+        for (int i = 0; i < aliens; i++) {
+            world.spawnAlien((double) i / aliens, 0.25, 0);
+            world.fireEnemyShot(i);
+        }
+        //A direct buffer, like the memory mapped autosave file
+        state = ByteBuffer.allocateDirect(world.getStateSize());
+    }
+
+    @Benchmark
+    public ByteBuffer save() {
+        state.clear();
+        world.writeState(state);
+        return state;
+    }
+
+    @Benchmark
+    public World restore() {
+        state.clear();
+        world.writeState(state);
+        state.flip();
+        restored.readState(state, 1080, 1920);
+        return restored;
+    }
+}
@@ -0,0 +1,84 @@
+package alec.is.awesome.spaceinvaders.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import alec.is.awesome.spaceinvaders.core.SessionLog;
+import alec.is.awesome.spaceinvaders.core.SessionRecord;
+import alec.is.awesome.spaceinvaders.core.World;
+
+/**
+ * Measures the SessionLog once it already holds many games: adding one more, opening it when the app
+ * starts, and finding the high scores. None of these should get slower as the log grows.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SessionLogBenchmark {
+    @Param({"1000", "50000"})
+    public int sessions;
+
+    private File dir;
+    private SessionLog log;
+    private SessionRecord record;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dir = File.createTempFile("sessions", "");
+        dir.delete();
+        dir.mkdir();
+        log = open();
+        Random random = new Random(1);
+        for (int i = 0; i < sessions; i++) {
+            log.append(new SessionRecord(i, 60000000000L, random.nextInt(1000), World.LOST, 100, 1000, 2000, 4000));
+        }
+        log.flush();
+        record = new SessionRecord(0, 60000000000L, 500, World.WON, 100, 1000, 2000, 4000);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        for (File f : dir.listFiles()) {
+            f.delete();
+        }
+        dir.delete();
+    }
+
+    /**
+     * Add a game without flushing, which is what the game costs the writer thread for each game in a batch
+     */
+    @Benchmark
+    public SessionLog append() throws IOException {
+        log.append(record);
+        return log;
+    }
+
+    @Benchmark
+    public List<SessionRecord> openAndGetTop10() throws IOException {
+        return open().getTop(10);
+    }
+
+    private SessionLog open() throws IOException {
+        return new SessionLog(new File(dir, "sessions.log"), new File(dir, "sessions.idx"));
+    }
+}
@@ -0,0 +1,75 @@
+package alec.is.awesome.spaceinvaders.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+import alec.is.awesome.spaceinvaders.core.FrameSnapshot;
+import alec.is.awesome.spaceinvaders.core.World;
+
+/**
+ * Measures one full tick of the game the way the GameLoop runs it: stepping the World
+ * and copying it into a FrameSnapshot for the screen.
+ * The player fires every 30 ticks and aliens that are shot are replaced straight away,
+ * so the swarm stays the same size for the whole run.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TickBenchmark {
+    private static final long DT = 1000000000L / 60;
+
+    @Param({"10", "100", "1000", "10000"})
+    public int aliens;
+
+    /**
+     * Whether the World stores the aliens and shots as Entity objects or in Swarms of arrays
+     */
+    @Param({"false", "true"})
+    public boolean dataOriented;
+
+    private World world;
+    private FrameSnapshot frame;
+    private int tick;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        world = new World(1080, 1920, dataOriented);
+        frame = new FrameSnapshot();
+        topUp();
+    }
+
+    @Benchmark
+    public FrameSnapshot tick() {
+        if (tick++ % 30 == 0) {
+            world.fireShot();
+        }
+        world.step(DT);
+        topUp();
+        world.writeSnapshot(frame);
+        return frame;
+    }
+
+    /**
+     * Replace the aliens that were shot. They only move sideways so they never reach the bottom.
+     */
+    private void topUp() {
+        for (int i = world.getEnemyCount(); i < aliens; i++) {
+            world.spawnAlien(((i % 9) - 4) / 20.0, 0);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package alec.is.awesome.spaceinvaders.core;
+
+/**
+ * Created by Alec Krawciw on 2017-05-03.
+ */
+
+/**
+ * Sub-class of Entity representing an enemy spacecraft
+ */
+public class AlienShip extends Entity {
+    /**
+     * Constructor that accepts the initial velocities if the alien
+     * @param world The World the alien is spawned in
+     * @param vx The horizontal velocity
+     * @param vy The vertical velocity
+     */
+    public AlienShip(World world, double vx, double vy) {
+        super(world, Sprite.ENEMY_SHIP, vx, vy, world.getRandom().nextDouble() * (world.getWidth() - dims(world)), 0, dims(world), dims(world));
+    }
+
+    /**
+     * Make an alien for a pool. It is given its place and velocity by reset, so making one does not use
+     * any random numbers and a game plays out the same however many aliens its pool already had.
+     * @param world The World the alien will be spawned in
+     */
+    public AlienShip(World world) {
+        super(world, Sprite.ENEMY_SHIP, 0, 0, 0, 0, dims(world), dims(world));
+    }
+
+    /**
+     * Reuse this alien as if it had just been created
+     * @param vx The horizontal velocity
+     * @param vy The vertical velocity
+     */
+    public void reset(double vx, double vy) {
+        reset(world.getRandom().nextDouble() * (world.getWidth() - dims(world)), vx, vy);
+    }
+
+    /**
+     * Reuse this alien as if it had just been created at the top of the screen
+     * @param x The left edge
+     * @param vx The horizontal velocity
+     * @param vy The vertical velocity
+     */
+    public void reset(double x, double vx, double vy) {
+        init(vx, vy, x, 0, dims(world), dims(world));
+    }
+
+    /**
+     * The dimensions of the alien
+     * @param world The World the alien is in
+     * @return The width and height of an alien in pixels
+     */
+    public static int dims(World world) {
+        return 75 * world.getWidth() / 1005;
+    }
+
+    /**
+     * If the alien is going off the side of the screen put it back
+     * on the screen and reverse its horizontal direction
+     */
+    @Override
+    public void checkHitBox() {
+        if(getHitBox().right > world.getWidth()){
+            setVx(-getVx());
+            setX(world.getWidth() - getWidth());
+        } else if(getHitBox().left < 0){
+            setVx(-getVx());
+            setX(0);
+        }
+    }
+
+    /**
+     * Called after a collision. Currently it simply signals the loop to remove it.
+     * @param other The Entity that collided with this Entity
+     */
+    @Override
+    public void collideAction(Entity other) {
+        valid = false;
+    }
+}
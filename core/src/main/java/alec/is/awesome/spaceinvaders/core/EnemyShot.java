@@ -0,0 +1,48 @@
+package alec.is.awesome.spaceinvaders.core;
+
+/**
+ * Sub class of Entity. This class is used to represent
+ * the lasers fired down the screen by the aliens.
+ */
+public class EnemyShot extends Entity {
+    /**
+     * The vertical velocity of every enemy shot, in pixels per millisecond. Positive is down the screen.
+     */
+    public static final double SPEED = 0.4;
+
+    /**
+     * Make an enemy shot for a pool. It is put in place by reset when it is fired.
+     * @param world The World the shot will be fired in
+     */
+    public EnemyShot(World world) {
+        super(world, Sprite.ENEMY_LASER, 0, SPEED, 0, 0, Shot.width(world), Shot.height(world));
+    }
+
+    /**
+     * Reuse this shot as if it had just been fired
+     * @param x The horizontal position of the shot
+     * @param y The vertical position of the shot
+     */
+    public void reset(double x, double y) {
+        init(0, SPEED, x, y, Shot.width(world), Shot.height(world));
+    }
+
+    /**
+     * Remove the shot once it has left the screen
+     */
+    @Override
+    public void checkHitBox() {
+        if(!HitBox.intersects(getHitBox(), world.getBounds())){
+            valid = false;
+        }//if
+    }//checkHitBox
+
+    /**
+     * The shot is used up by whatever it hits
+     * @param other The Entity that collided with this Entity
+     */
+    @Override
+    public void collideAction(Entity other) {
+        valid = false;
+    }//collideAction
+}
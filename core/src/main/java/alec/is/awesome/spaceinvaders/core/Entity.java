@@ -1,9 +1,4 @@
-package alec.is.awesome.spaceinvaders;
-
-import android.graphics.Bitmap;
-import android.graphics.Canvas;
-import android.graphics.Paint;
-import android.graphics.Rect;
+package alec.is.awesome.spaceinvaders.core;
 
 /**
  * Created by Alec Krawciw on 2017-05-03.
@@ -11,7 +6,8 @@ import android.graphics.Rect;
 
 /**
  * An abstract super class for all objects that move around the screen
- * and are controlled by the gameloop.
+ * and are controlled by the World. Entities only store numbers, the
+ * Android side decides how to draw them from their Sprite.
  */
 public abstract class Entity {
     String TAG = "Entity";
@@ -19,12 +15,12 @@ public abstract class Entity {
     /**
      * The area considered to be the entity for collisions
      * */
-    private Rect hitBox;
+    private final HitBox hitBox = new HitBox(0, 0, 0, 0);
     private int width = 0;
     private int height = 0;
 
     /**
-     * The speeds both x and y of the entity on the screen.
+     * The speeds both x and y of the entity on the screen in pixels per millisecond.
      * Remember that positive y is down the screen
      */
     private double vx = 0;
@@ -38,17 +34,14 @@ public abstract class Entity {
     private double y = 0;
 
     /**
-     * The last time (in milliseconds) that the update method was called.
-     * This allows you to account for changes in the game loop's execution speed.
-     * This gives you smoother motion regardless
+     * The image to be drawn representing the Entity.
      */
-    protected long lastUpdateTime = System.currentTimeMillis();
+    private Sprite sprite;
 
     /**
-     * The image to be drawn representing the Entity.
-     * Bitmaps are similar to BufferedImages in AWT
+     * The World that this Entity belongs to. Used to find the edges of the screen.
      */
-    protected Bitmap image;
+    protected World world;
 
     /**
      * Flag denoting whether or not the game loop should remove this entity from the list of entities
@@ -58,7 +51,8 @@ public abstract class Entity {
 
     /**
      * Create a new Entity object.
-     * @param resId The Android resource for the Entity image. In form R.drawable.[filename no extension]
+     * @param world The World the Entity lives in
+     * @param sprite The image used to draw the Entity
      * @param vx The horizontal speed
      * @param vy The vertical speed
      * @param x The horizontal location
@@ -66,51 +60,59 @@ public abstract class Entity {
      * @param width The width of the object
      * @param height The height of the object
      */
-    public Entity(int resId, double vx, double vy, double x, double y, int width, int height){
-        image = Bitmap.createScaledBitmap(ImageLibrary.getImage(resId), width, height, false);
+    public Entity(World world, Sprite sprite, double vx, double vy, double x, double y, int width, int height){
+        this.world = world;
+        this.sprite = sprite;
+        init(vx, vy, x, y, width, height);
+    }
+
+    /**
+     * Put the Entity back into a fresh state so that it can be reused from an EntityPool.
+     * @param vx The horizontal speed
+     * @param vy The vertical speed
+     * @param x The horizontal location
+     * @param y The vertical location
+     * @param width The width of the object
+     * @param height The height of the object
+     */
+    protected void init(double vx, double vy, double x, double y, int width, int height){
         this.vx = vx;
         this.vy = vy;
         this.x = x;
         this.y = y;
         this.width = width;
         this.height = height;
+        valid = true;
 
         updateHitBox();
     }
 
-    /**
-     * This draws the entity's image on the screen at the current location
-     * See android.graphics.Canvas
-     * @param c The Canvas to be drawn on
-     */
-    public void draw(Canvas c){
-        c.drawBitmap(image, (int)x, (int)y, new Paint());
-    }
-
     /**
      * This updates the location of the Entity's hitbox once the entity has moved
      */
     protected void updateHitBox(){
-        this.hitBox = new Rect((int)x,  (int)y, (int)(x + width), (int)(y + height));
+        hitBox.set((int)x,  (int)y, (int)(x + width), (int)(y + height));
     }
 
     /**
+     * The same HitBox is returned every time and is moved as the Entity moves,
+     * so copy the numbers out of it if you need to keep them.
      * @return The Entity's current hitbox
      */
-    public Rect getHitBox(){
+    public HitBox getHitBox(){
         return hitBox;
     }
 
     /**
      * Called every game loop to update the Entity's state.
      * By default it moves the Entity by its speed multiplied the time since the last
-     * loop execution. This makes for smoother graphics.
+     * tick. Every Entity is given the same time so they all move together.
      * If you want an animated image, this would be the place to update the frame.
+     * @param dt The time in milliseconds since the last tick
      */
-    public void update(){
-        x += vx * (System.currentTimeMillis() - lastUpdateTime);
-        y += vy * (System.currentTimeMillis() - lastUpdateTime);
-        lastUpdateTime = System.currentTimeMillis();
+    public void update(double dt){
+        x += vx * dt;
+        y += vy * dt;
         updateHitBox();
         checkHitBox();
     }
@@ -187,6 +189,14 @@ public abstract class Entity {
         this.y = y;
     }
 
+    /**
+     * Get the image used to draw the Entity.
+     * @return The Entity's sprite.
+     */
+    public Sprite getSprite() {
+        return sprite;
+    }
+
     /**
      * Get the height of the Entity.
      * @return The current height of the entity.
@@ -209,7 +219,7 @@ public abstract class Entity {
      * @return true if they have collided false otherwise
      */
     public boolean collidedWith(Entity other){
-        return Rect.intersects(hitBox, other.hitBox);
+        return HitBox.intersects(hitBox, other.hitBox);
     }
 
     /**
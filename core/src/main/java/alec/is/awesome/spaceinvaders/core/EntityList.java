@@ -0,0 +1,91 @@
+package alec.is.awesome.spaceinvaders.core;
+
+import java.util.Arrays;
+
+/**
+ * A list of Entities built for the game loop. The Entities are kept packed at the
+ * front of an array and removing one moves the last Entity into its place, so
+ * removing is as cheap as adding and nothing is copied or allocated once the
+ * array is big enough. Because of this the order of the Entities changes when
+ * one is removed.
+ * Only the game thread should use this list, the screen is drawn from a FrameSnapshot.
+ */
+public class EntityList {
+    private Entity[] items;
+    private int size = 0;
+
+    /**
+     * Create an empty list
+     * @param capacity How many Entities the list can hold before it has to grow
+     */
+    public EntityList(int capacity) {
+        items = new Entity[Math.max(1, capacity)];
+    }
+
+    /**
+     * @return The number of Entities in the list
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return true if there are no Entities in the list
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @param i The position of the Entity
+     * @return The Entity at that position
+     */
+    public Entity get(int i) {
+        return items[i];
+    }
+
+    /**
+     * Add an Entity to the end of the list
+     * @param e The Entity to add
+     */
+    public void add(Entity e) {
+        if(size == items.length){
+            items = Arrays.copyOf(items, size * 2);
+        }//if
+        items[size++] = e;
+    }
+
+    /**
+     * Remove an Entity by moving the last Entity into its place
+     * @param i The position of the Entity to remove
+     * @return The Entity that was removed
+     */
+    public Entity removeAt(int i) {
+        Entity removed = items[i];
+        items[i] = items[--size];
+        items[size] = null;
+        return removed;
+    }
+
+    /**
+     * Remove every Entity that is no longer valid
+     * @return The number of Entities removed
+     */
+    public int removeInvalid() {
+        int before = size;
+        for(int i = size - 1; i >= 0; i--){
+            if(!items[i].isValid()){
+                removeAt(i);
+            }//if
+        }//for
+        return before - size;
+    }
+
+    /**
+     * Remove every Entity from the list
+     */
+    public void clear() {
+        Arrays.fill(items, 0, size, null);
+        size = 0;
+    }
+}
@@ -0,0 +1,63 @@
+package alec.is.awesome.spaceinvaders.core;
+
+import java.util.Arrays;
+
+/**
+ * Keeps Entities that have been removed from the game so they can be reused instead of
+ * creating new ones. Subclasses say how to create an Entity when the pool is empty;
+ * callers reset an obtained Entity to the state they need before adding it to the game.
+ * @param <T> The type of Entity stored in the pool
+ */
+public abstract class EntityPool<T extends Entity> {
+    private Object[] free; //Entities waiting to be reused
+    private int count = 0;
+
+    /**
+     * Create a pool that already holds some Entities
+     * @param capacity How many Entities to create straight away
+     */
+    public EntityPool(int capacity) {
+        free = new Object[Math.max(1, capacity)];
+        for(int i = 0; i < capacity; i++){
+            free[count++] = create();
+        }//for
+    }
+
+    /**
+     * Called when an Entity is needed and none are waiting to be reused
+     * @return A new Entity
+     */
+    protected abstract T create();
+
+    /**
+     * Get an Entity to use, reusing an old one if possible
+     * @return An Entity that must be reset before it is used
+     */
+    @SuppressWarnings("unchecked")
+    public T obtain() {
+        if(count == 0){
+            return create();
+        }//if
+        T e = (T) free[--count];
+        free[count] = null;
+        return e;
+    }
+
+    /**
+     * Give back an Entity that is no longer in the game
+     * @param e The Entity to reuse later
+     */
+    public void free(T e) {
+        if(count == free.length){
+            free = Arrays.copyOf(free, count * 2);
+        }//if
+        free[count++] = e;
+    }
+
+    /**
+     * @return The number of Entities waiting to be reused
+     */
+    public int size() {
+        return count;
+    }
+}
@@ -0,0 +1,73 @@
+package alec.is.awesome.spaceinvaders.core;
+
+/**
+ * Decides how many fixed sized simulation steps should run based on how much real time has passed.
+ * Time that is left over is kept in an accumulator for the next call, so the simulation
+ * always moves forward by the same amount per step no matter how fast the device is.
+ */
+public class FixedStepScheduler {
+    /**
+     * The most steps that will be run to catch up at once. If the device falls further
+     * behind than this the extra time is dropped rather than freezing the game trying to catch up.
+     */
+    public static final int MAX_STEPS_PER_ADVANCE = 5;
+
+    private final long stepNanos; //The length of one simulation step
+    private long accumulator = 0; //Real time that has passed but not been simulated yet
+    private long lastTime = 0; //The last time that advance or reset was called
+
+    /**
+     * Create a scheduler that runs the given number of steps every second
+     * @param ticksPerSecond How many simulation steps make up one second
+     */
+    public FixedStepScheduler(int ticksPerSecond) {
+        if(ticksPerSecond <= 0){
+            throw new IllegalArgumentException("ticksPerSecond must be positive: " + ticksPerSecond);
+        }
+        stepNanos = 1000000000L / ticksPerSecond;
+    }
+
+    /**
+     * Forget any time that has built up. Call this before the first advance and after
+     * the game has been paused so the simulation does not try to make up for the pause.
+     * @param nowNanos The current time from System.nanoTime()
+     */
+    public void reset(long nowNanos) {
+        lastTime = nowNanos;
+        accumulator = 0;
+    }
+
+    /**
+     * Add the real time that has passed to the accumulator and take out as many whole steps as fit.
+     * @param nowNanos The current time from System.nanoTime()
+     * @return The number of steps of getStepNanos() that should be simulated now
+     */
+    public int advance(long nowNanos) {
+        accumulator += nowNanos - lastTime;
+        lastTime = nowNanos;
+
+        int steps = (int) Math.min(accumulator / stepNanos, MAX_STEPS_PER_ADVANCE);
+        accumulator -= steps * stepNanos;
+        if(accumulator >= stepNanos){
+            //Too far behind, drop the time that could not be caught up
+            accumulator %= stepNanos;
+        }//if
+        return steps;
+    }
+
+    /**
+     * How long the caller can wait before there will be another step to run.
+     * @param nowNanos The current time from System.nanoTime()
+     * @return The number of nanoseconds until the next step is due, 0 if one is already due
+     */
+    public long nanosUntilNextStep(long nowNanos) {
+        return Math.max(0, stepNanos - accumulator - (nowNanos - lastTime));
+    }
+
+    /**
+     * @return The length of one simulation step in nanoseconds
+     */
+    public long getStepNanos() {
+        return stepNanos;
+    }
+}
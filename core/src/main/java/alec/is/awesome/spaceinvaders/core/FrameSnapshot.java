@@ -0,0 +1,125 @@
+package alec.is.awesome.spaceinvaders.core;
+
+import java.util.Arrays;
+
+/**
+ * A copy of everything needed to draw one frame of the game. The game thread fills
+ * one of these in after it steps the World and the screen draws from it, so drawing
+ * never sees an Entity that is half way through being updated.
+ * The arrays only grow, so filling in a snapshot every tick creates no garbage.
+ */
+public class FrameSnapshot {
+    private static final Sprite[] SPRITES = Sprite.values();
+
+    private float[] x = new float[64]; //The horizontal position of each Entity
+    private float[] y = new float[64]; //The vertical position of each Entity
+    private int[] width = new int[64];
+    private int[] height = new int[64];
+    private int[] sprite = new int[64]; //The ordinal of each Entity's Sprite
+    private int count = 0;
+
+    private int numShot = 0; //The number of aliens shot when the snapshot was taken
+    private int outcome = World.IN_PROGRESS; //Whether the game was won or lost when the snapshot was taken
+    private long inputNanos = 0; //When the oldest input shown for the first time in this frame happened, 0 if none
+
+    /**
+     * Remove all Entities and store the score for a new frame
+     * @param numShot The number of aliens shot so far
+     * @param outcome IN_PROGRESS, LOST or WON
+     */
+    public void begin(int numShot, int outcome) {
+        this.numShot = numShot;
+        this.outcome = outcome;
+        count = 0;
+    }
+
+    /**
+     * Mark the frame as the first to show the result of a player's input, so the time from the input
+     * to the frame being drawn can be measured
+     * @param timeNanos When the oldest input since the last frame happened, in System.nanoTime() time, or 0 if none
+     */
+    public void setInputNanos(long timeNanos) {
+        inputNanos = timeNanos;
+    }
+
+    /**
+     * @return When the oldest input first shown in this frame happened, or 0 if there was none
+     */
+    public long getInputNanos() {
+        return inputNanos;
+    }
+
+    /**
+     * Copy the position, size and image of an Entity into the snapshot
+     * @param e The Entity to copy
+     */
+    public void add(Entity e) {
+        add((float) e.getX(), (float) e.getY(), e.getWidth(), e.getHeight(), e.getSprite());
+    }
+
+    /**
+     * Add something to draw that is not stored as an Entity (see Swarm)
+     * @param x The left edge
+     * @param y The top edge
+     * @param w The width
+     * @param h The height
+     * @param s The image to draw
+     */
+    public void add(float x, float y, int w, int h, Sprite s) {
+        if(count == this.x.length){
+            int size = count * 2;
+            this.x = Arrays.copyOf(this.x, size);
+            this.y = Arrays.copyOf(this.y, size);
+            width = Arrays.copyOf(width, size);
+            height = Arrays.copyOf(height, size);
+            sprite = Arrays.copyOf(sprite, size);
+        }//if
+        this.x[count] = x;
+        this.y[count] = y;
+        width[count] = w;
+        height[count] = h;
+        sprite[count] = s.ordinal();
+        count++;
+    }
+
+    /**
+     * @return The number of Entities in this frame
+     */
+    public int size() {
+        return count;
+    }
+
+    public float getX(int i) {
+        return x[i];
+    }
+
+    public float getY(int i) {
+        return y[i];
+    }
+
+    public int getWidth(int i) {
+        return width[i];
+    }
+
+    public int getHeight(int i) {
+        return height[i];
+    }
+
+    public Sprite getSprite(int i) {
+        return SPRITES[sprite[i]];
+    }
+
+    /**
+     * @return The number of aliens shot when this frame was taken
+     */
+    public int getNumAliensShot() {
+        return numShot;
+    }
+
+    /**
+     * @return IN_PROGRESS, LOST or WON
+     */
+    public int getOutcome() {
+        return outcome;
+    }
+}
@@ -0,0 +1,74 @@
+package alec.is.awesome.spaceinvaders.core;
+
+/**
+ * A fast random number generator (xorshift64*) for the rules of the game.
+ * Every game is given its own seed, so a game played again from the same seed with the same
+ * input makes exactly the same random numbers. Unlike Math.random nothing is shared between
+ * threads, so there is no locking. Only the game thread should use it.
+ */
+public class GameRandom {
+    private long state;
+
+    /**
+     * @param seed Any number. The same seed always gives the same numbers.
+     */
+    public GameRandom(long seed) {
+        setSeed(seed);
+    }
+
+    /**
+     * Start the sequence again from a seed
+     * @param seed Any number
+     */
+    public void setSeed(long seed) {
+        //Spread the bits of the seed out (the SplitMix64 finaliser) so nearby seeds give unrelated games.
+        //The state must never be 0 or it stays 0 forever.
+        long z = seed + 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        z = z ^ (z >>> 31);
+        state = z != 0 ? z : 0x9E3779B97F4A7C15L;
+    }
+
+    /**
+     * @return Everything needed to carry on the sequence later with setState
+     */
+    public long getState() {
+        return state;
+    }
+
+    /**
+     * Carry on a sequence from where getState was called
+     * @param state A value returned by getState
+     */
+    public void setState(long state) {
+        this.state = state != 0 ? state : 0x9E3779B97F4A7C15L;
+    }
+
+    /**
+     * @return 64 random bits
+     */
+    public long nextLong() {
+        long x = state;
+        x ^= x >>> 12;
+        x ^= x << 25;
+        x ^= x >>> 27;
+        state = x;
+        return x * 0x2545F4914F6CDD1DL;
+    }
+
+    /**
+     * @return A random number from 0 (inclusive) to 1 (exclusive), like Math.random
+     */
+    public double nextDouble() {
+        return (nextLong() >>> 11) * 0x1.0p-53;
+    }
+
+    /**
+     * @param bound The number of possible results, more than 0
+     * @return A random number from 0 (inclusive) to bound (exclusive)
+     */
+    public int nextInt(int bound) {
+        return (int) ((nextLong() >>> 33) * bound >>> 31);
+    }
+}
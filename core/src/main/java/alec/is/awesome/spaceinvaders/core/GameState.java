@@ -0,0 +1,203 @@
+package alec.is.awesome.spaceinvaders.core;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Which part of the game the app is in: LOADING, MENU, IN_GAME, PAUSED, LOSE or WIN,
+ * or briefly STARTING while a new game is set up (STARTING_PAUSED if the app is paused
+ * meanwhile), and RELEASED for good once the game thread has been stopped.
+ * Every change of state is made with a single compare and set, so when two threads try to
+ * change it at once (a tap starting a game just as another tap does) only one of them succeeds.
+ * It only decides what the state is; waking and sleeping the game thread is left to the caller.
+ */
+public class GameState {
+    public static final int MENU = 0;
+    public static final int IN_GAME = 1;
+    public static final int LOSE = 2;
+    public static final int WIN = 3;
+    public static final int LOADING = 4; //The images are still being decoded, the game cannot be started yet
+    public static final int PAUSED = 5;
+
+    /**
+     * The state between a game being started and the game thread setting it up.
+     * Not shown, the listener is told IN_GAME once the game is set up.
+     */
+    public static final int STARTING = -1;
+
+    /**
+     * STARTING, but the app was paused before the game was set up. The game thread sets it up
+     * and then leaves it PAUSED rather than IN_GAME. Not shown either.
+     */
+    public static final int STARTING_PAUSED = -2;
+
+    /**
+     * The game thread has been stopped for good. No change is made from it, and it is not shown.
+     */
+    public static final int RELEASED = -3;
+
+    /**
+     * Told about every change to a state that is shown, so never STARTING, STARTING_PAUSED or RELEASED
+     */
+    public interface Listener {
+        /**
+         * May be called from any thread, just after the change
+         * @param state The new state
+         */
+        void stateChanged(int state);
+    }
+
+    private final AtomicInteger state;
+    private volatile Listener listener;
+
+    /**
+     * @param initial The state to begin in
+     */
+    public GameState(int initial) {
+        state = new AtomicInteger(initial);
+    }
+
+    /**
+     * @param listener Told about every change that is shown from now on, or null to stop telling anyone
+     */
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * @return The current state, which may be STARTING, STARTING_PAUSED or RELEASED
+     */
+    public int get() {
+        return state.get();
+    }
+
+    /**
+     * Move from one state to another if still in the first, and tell the listener
+     * @param from The state that it must be in
+     * @param to The new state
+     * @return true if the state was changed, false if it was not in the from state
+     */
+    public boolean transition(int from, int to) {
+        if(!state.compareAndSet(from, to)){
+            return false;
+        }//if
+        Listener l = listener;
+        if(l != null && to >= 0){
+            l.stateChanged(to);
+        }//if
+        return true;
+    }
+
+    /**
+     * Start a new game from the menu or after a game has ended
+     * @return true if the state is now STARTING, false if a game could not be started from the state it was in
+     */
+    public boolean startGame() {
+        return transition(MENU, STARTING) || transition(LOSE, STARTING) || transition(WIN, STARTING);
+    }
+
+    /**
+     * Called by the game thread once a started game is set up. The game is played if it is
+     * STARTING, or paused if it is STARTING_PAUSED; whichever pause or resume happened last wins.
+     * Does nothing if it is neither (it has been released).
+     */
+    public void finishStarting() {
+        while(!transition(STARTING, IN_GAME) && !transition(STARTING_PAUSED, PAUSED)){
+            int current = state.get();
+            if(current != STARTING && current != STARTING_PAUSED){
+                return;
+            }//if
+        }//while
+    }
+
+    /**
+     * Pause the game being played, or the game being started once it is set up.
+     * Does nothing in any other state.
+     * @return true if a game being played was paused, so the game thread should be woken to go to sleep
+     */
+    public boolean pause() {
+        while(true){
+            if(transition(IN_GAME, PAUSED)){
+                return true;
+            } else if(transition(STARTING, STARTING_PAUSED)){
+                //The game thread is setting up a game, it will be paused as soon as it is ready
+                return false;
+            }//if
+            int current = state.get();
+            if(current != IN_GAME && current != STARTING){
+                return false;
+            }//if
+        }//while
+    }
+
+    /**
+     * Undo a pause. A game that was paused while it was being set up goes back to STARTING.
+     * @param waitingForTap true if a paused game should stay paused until the screen is tapped
+     * @return true if the state was changed, so the game thread should be woken
+     */
+    public boolean resume(boolean waitingForTap) {
+        return transition(STARTING_PAUSED, STARTING) || (!waitingForTap && transition(PAUSED, IN_GAME));
+    }
+
+    /**
+     * Finish the game being played, even if it was paused since the tick that ended it began
+     * @param result LOSE or WIN
+     * @return true if the game was finished, false if there was no game being played or paused
+     */
+    public boolean end(int result) {
+        while(!transition(IN_GAME, result) && !transition(PAUSED, result)){
+            int current = state.get();
+            if(current != IN_GAME && current != PAUSED){
+                return false;
+            }//if
+        }//while
+        return true;
+    }
+
+    /**
+     * Move to RELEASED for good, whatever the state is
+     * @return The state it was in before
+     */
+    public int release() {
+        return state.getAndSet(RELEASED);
+    }
+
+    /**
+     * @return The current state as it is shown: STARTING counts as IN_GAME, STARTING_PAUSED as PAUSED
+     * and RELEASED as MENU
+     */
+    public int getShown() {
+        int current = state.get();
+        if(current == STARTING){
+            return IN_GAME;
+        } else if(current == STARTING_PAUSED){
+            return PAUSED;
+        } else if(current == RELEASED){
+            return MENU;
+        }//if
+        return current;
+    }
+
+    /**
+     * @return true while a game is starting or being played
+     */
+    public boolean isTakingInput() {
+        int current = state.get();
+        return current == STARTING || current == IN_GAME;
+    }
+
+    /**
+     * @return true if a game is paused, or will be once it is set up
+     */
+    public boolean isPaused() {
+        int current = state.get();
+        return current == PAUSED || current == STARTING_PAUSED;
+    }
+
+    /**
+     * @return true if a game is starting, being played or paused
+     */
+    public boolean isRunning() {
+        int current = state.get();
+        return current == STARTING || current == STARTING_PAUSED || current == IN_GAME || current == PAUSED;
+    }
+}
@@ -0,0 +1,162 @@
+package alec.is.awesome.spaceinvaders.core;
+
+import java.io.PrintWriter;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counts how often each value is recorded, in buckets that get wider as the values get bigger,
+ * so that it can record anything from a few nanoseconds to many seconds in a fixed amount of memory.
+ * Every bucket is at most 1/64th of the values it holds wide, so percentiles are within about 1.5%.
+ * Any thread can record and read at the same time without locks, and recording never allocates.
+ * A read that happens during a record may miss that one value, which does not matter for statistics.
+ */
+public class Histogram {
+    private static final int SUB_BUCKET_BITS = 7;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS; //Values below this get a bucket each
+    private static final int HALF = SUB_BUCKETS / 2;
+
+    private final String name;
+    private final long highestValue;
+    private final AtomicLongArray counts;
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * @param name What is being recorded, used in reports
+     * @param highestValue Anything bigger than this is recorded as this
+     */
+    public Histogram(String name, long highestValue) {
+        this.name = name;
+        this.highestValue = Math.max(1, highestValue);
+        counts = new AtomicLongArray(indexOf(this.highestValue) + 1);
+    }
+
+    /**
+     * Add one value. Negative values are recorded as 0.
+     * @param value The value to record
+     */
+    public void record(long value) {
+        if(value < 0){
+            value = 0;
+        } else if(value > highestValue){
+            value = highestValue;
+        }//if
+        counts.incrementAndGet(indexOf(value));
+        count.incrementAndGet();
+        total.addAndGet(value);
+
+        long m = max.get();
+        while(value > m && !max.compareAndSet(m, value)){
+            m = max.get();
+        }//while
+    }
+
+    /**
+     * Forget every value recorded so far
+     */
+    public void reset() {
+        for(int i = 0; i < counts.length(); i++){
+            counts.set(i, 0);
+        }//for
+        count.set(0);
+        total.set(0);
+        max.set(0);
+    }
+
+    /**
+     * @return What is being recorded
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return How many values have been recorded
+     */
+    public long getCount() {
+        return count.get();
+    }
+
+    /**
+     * @return The largest value recorded, or 0 if there are none
+     */
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * @return The average of the recorded values, or 0 if there are none
+     */
+    public double getMean() {
+        long n = count.get();
+        return n == 0 ? 0 : (double) total.get() / n;
+    }
+
+    /**
+     * Find the value that the given percentage of recorded values are at or below.
+     * @param percentile Between 0 and 100, for example 99 for the 99th percentile
+     * @return The highest value that is in the same bucket as the percentile, or 0 if nothing has been recorded
+     */
+    public long getPercentile(double percentile) {
+        long n = count.get();
+        if(n == 0){
+            return 0;
+        }//if
+        long wanted = Math.max(1, (long) Math.ceil(Math.min(100, Math.max(0, percentile)) / 100 * n));
+        long seen = 0;
+        for(int i = 0; i < counts.length(); i++){
+            seen += counts.get(i);
+            if(seen >= wanted){
+                return Math.min(highestValueIn(i), max.get());
+            }//if
+        }//for
+        return max.get();
+    }
+
+    /**
+     * Write a summary line followed by one line for every bucket that has values in it:
+     * the highest value in the bucket, how many values it holds, and the percentage of all
+     * values that are at or below it.
+     * @param out Where to write the histogram
+     */
+    public void writeTo(PrintWriter out) {
+        long n = count.get();
+        out.println("# " + name + " count=" + n + " mean=" + getMean() + " p50=" + getPercentile(50)
+                + " p90=" + getPercentile(90) + " p99=" + getPercentile(99) + " max=" + getMax());
+        long seen = 0;
+        for(int i = 0; i < counts.length(); i++){
+            long c = counts.get(i);
+            if(c == 0){
+                continue;
+            }//if
+            seen += c;
+            out.println(highestValueIn(i) + "\t" + c + "\t" + (100.0 * seen / Math.max(1, n)));
+        }//for
+    }
+
+    /**
+     * Find the bucket for a value. Values below SUB_BUCKETS each get their own bucket, above that
+     * every doubling of the value is split into HALF buckets.
+     */
+    static int indexOf(long value) {
+        if(value < SUB_BUCKETS){
+            return (int) value;
+        }//if
+        int shift = (63 - Long.numberOfLeadingZeros(value)) - (SUB_BUCKET_BITS - 1);
+        return shift * HALF + (int) (value >>> shift);
+    }
+
+    /**
+     * The largest value that falls into a bucket
+     */
+    static long highestValueIn(int index) {
+        if(index < SUB_BUCKETS){
+            return index;
+        }//if
+        int shift = index / HALF - 1;
+        long subBucket = index - shift * HALF;
+        return ((subBucket + 1) << shift) - 1;
+    }
+}
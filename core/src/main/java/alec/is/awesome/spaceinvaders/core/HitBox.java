@@ -0,0 +1,63 @@
+package alec.is.awesome.spaceinvaders.core;
+
+/**
+ * A plain rectangle used for collisions. This works the same way as
+ * android.graphics.Rect but does not need Android to run.
+ * Remember that (0,0) is the top left corner and positive y is down the screen.
+ * HitBoxes are changed in place with set so that moving an Entity creates no garbage.
+ */
+public class HitBox {
+    public int left;
+    public int top;
+    public int right;
+    public int bottom;
+
+    /**
+     * Create a new rectangle from its edges
+     * @param left The left edge
+     * @param top The top edge
+     * @param right The right edge
+     * @param bottom The bottom edge
+     */
+    public HitBox(int left, int top, int right, int bottom) {
+        set(left, top, right, bottom);
+    }
+
+    /**
+     * Move the edges of the rectangle
+     * @param left The left edge
+     * @param top The top edge
+     * @param right The right edge
+     * @param bottom The bottom edge
+     */
+    public void set(int left, int top, int right, int bottom) {
+        this.left = left;
+        this.top = top;
+        this.right = right;
+        this.bottom = bottom;
+    }
+
+    /**
+     * @return The width of the rectangle
+     */
+    public int width() {
+        return right - left;
+    }
+
+    /**
+     * @return The height of the rectangle
+     */
+    public int height() {
+        return bottom - top;
+    }
+
+    /**
+     * Check whether two rectangles overlap. Rectangles that only share an edge do not overlap.
+     * @param a The first rectangle
+     * @param b The second rectangle
+     * @return true if they overlap false otherwise
+     */
+    public static boolean intersects(HitBox a, HitBox b) {
+        return a.left < b.right && b.left < a.right && a.top < b.bottom && b.top < a.bottom;
+    }
+}
@@ -0,0 +1,116 @@
+package alec.is.awesome.spaceinvaders.core;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Carries the player's commands from the UI thread to the game thread in the order they happened.
+ * It is a ring buffer with exactly one writer (the thread handling touches) and one reader
+ * (the game thread), so neither side ever locks or waits, and nothing is allocated after it is made.
+ * Every command keeps the time it happened so that the delay before it reaches the game can be measured.
+ */
+public class InputQueue {
+    /**
+     * Move the player's ship towards a point, value is the x coordinate of the point
+     */
+    public static final int STEER = 0;
+    /**
+     * Stop the player's ship, value is unused
+     */
+    public static final int STOP = 1;
+    /**
+     * Fire a shot from the player's ship, value is unused
+     */
+    public static final int FIRE = 2;
+
+    private final int mask;
+    private final int[] types;
+    private final double[] values;
+    private final long[] times;
+
+    private final AtomicLong head = new AtomicLong(); //The next command to read, only moved by the reader
+    private final AtomicLong tail = new AtomicLong(); //The next free slot, only moved by the writer
+    private final AtomicLong dropped = new AtomicLong();
+
+    private long current = -1; //The command the reader is looking at, only used by the reader
+
+    /**
+     * @param capacity The most commands that can wait at once, rounded up to a power of two
+     */
+    public InputQueue(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        mask = size - 1;
+        types = new int[size];
+        values = new double[size];
+        times = new long[size];
+    }
+
+    /**
+     * Add a command. Only call this from the writing thread.
+     * @param type STEER, STOP or FIRE
+     * @param value The command's argument, see the type
+     * @param timeNanos When the command happened, in System.nanoTime() time
+     * @return false if the queue was full and the command was dropped
+     */
+    public boolean offer(int type, double value, long timeNanos) {
+        long t = tail.get();
+        if(t - head.get() > mask){
+            dropped.incrementAndGet();
+            return false;
+        }//if
+        int i = (int) t & mask;
+        types[i] = type;
+        values[i] = value;
+        times[i] = timeNanos;
+        //Publishes the slot to the reader after it has been filled in
+        tail.lazySet(t + 1);
+        return true;
+    }
+
+    /**
+     * Move on to the next command, freeing the previous one. Only call this from the reading thread.
+     * While this returns true the command can be read with getType, getValue and getTime.
+     * @return false if there are no more commands
+     */
+    public boolean next() {
+        long h = head.get();
+        if(current == h){
+            //Done with the last command so the writer can reuse its slot
+            h++;
+            head.lazySet(h);
+        }//if
+        if(h == tail.get()){
+            current = -1;
+            return false;
+        }//if
+        current = h;
+        return true;
+    }
+
+    /**
+     * @return The type of the current command
+     */
+    public int getType() {
+        return types[(int) current & mask];
+    }
+
+    /**
+     * @return The argument of the current command
+     */
+    public double getValue() {
+        return values[(int) current & mask];
+    }
+
+    /**
+     * @return When the current command happened, in System.nanoTime() time
+     */
+    public long getTime() {
+        return times[(int) current & mask];
+    }
+
+    /**
+     * @return How many commands have been dropped because the queue was full
+     */
+    public long getDropped() {
+        return dropped.get();
+    }
+}
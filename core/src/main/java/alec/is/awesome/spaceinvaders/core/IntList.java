@@ -0,0 +1,66 @@
+package alec.is.awesome.spaceinvaders.core;
+
+import java.util.Arrays;
+
+/**
+ * A growable list of ints that does not box them. Nothing is allocated once the array is big enough.
+ */
+public class IntList {
+    private int[] items;
+    private int size = 0;
+
+    /**
+     * @param capacity How many ints the list can hold before it has to grow
+     */
+    public IntList(int capacity) {
+        items = new int[Math.max(1, capacity)];
+    }
+
+    /**
+     * @return The number of ints in the list
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param i The position of the int
+     * @return The int at that position
+     */
+    public int get(int i) {
+        return items[i];
+    }
+
+    /**
+     * Add an int to the end of the list
+     * @param value The int to add
+     */
+    public void add(int value) {
+        if(size == items.length){
+            items = Arrays.copyOf(items, size * 2);
+        }//if
+        items[size++] = value;
+    }
+
+    /**
+     * Check if the list holds a value at or after a position
+     * @param value The int to look for
+     * @param from The first position to look at
+     * @return true if it was found
+     */
+    public boolean contains(int value, int from) {
+        for(int i = from; i < size; i++){
+            if(items[i] == value){
+                return true;
+            }//if
+        }//for
+        return false;
+    }
+
+    /**
+     * Remove every int. The array is kept for reuse.
+     */
+    public void clear() {
+        size = 0;
+    }
+}
@@ -0,0 +1,183 @@
+package alec.is.awesome.spaceinvaders.core;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Splits a loop over many items into chunks and runs the chunks on a fixed set of worker threads,
+ * with the calling thread working on chunks as well. Loops with fewer items than the threshold
+ * are run on the calling thread, where handing work to other threads would cost more than it saves.
+ * The chunks are always split the same way for the same number of items, so a task that writes its
+ * results per chunk and merges them in chunk order gets the same answer however the threads are scheduled.
+ * Only one thread may call run at a time.
+ */
+public class ParallelRunner {
+    /**
+     * The most chunks a loop is split into, so per chunk results can be kept in fixed arrays
+     */
+    public static final int MAX_CHUNKS = 64;
+
+    /**
+     * Chunks are never made smaller than this many items
+     */
+    private static final int MIN_CHUNK_SIZE = 128;
+
+    /**
+     * The work done for one chunk of a loop
+     */
+    public static abstract class Task {
+        /**
+         * Handle items from (inclusive) to to (exclusive). May be called on any thread,
+         * at the same time as other chunks of the same loop.
+         * @param chunk Which chunk this is, from 0 up to the number of chunks
+         * @param from The first item
+         * @param to One past the last item
+         */
+        public abstract void run(int chunk, int from, int to);
+    }
+
+    private final int threads;
+    private final int threshold;
+    private final ExecutorService workers;
+
+    //The loop being run. Written before the workers are started and only read by them after.
+    private volatile Task task;
+    private volatile int count;
+    private volatile int chunks;
+    private final AtomicInteger nextChunk = new AtomicInteger();
+    private final AtomicInteger remaining = new AtomicInteger(); //Chunks not finished yet
+    private final AtomicInteger helpers = new AtomicInteger(); //Workers that have been asked to help and not finished
+    private volatile Thread caller;
+    private volatile Throwable failure; //Anything a chunk threw, thrown again on the calling thread
+
+    private final Runnable helper = new Runnable() {
+        @Override
+        public void run() {
+            try {
+                runChunks();
+            } finally {
+                //Always let the caller stop waiting, or it would wait forever
+                if(helpers.decrementAndGet() == 0){
+                    LockSupport.unpark(caller);
+                }//if
+            }//finally
+        }
+    };
+
+    /**
+     * @param threads How many threads work on a loop, including the one calling run
+     * @param threshold Loops with fewer items than this run on the calling thread only
+     */
+    public ParallelRunner(int threads, int threshold) {
+        this.threads = Math.max(1, Math.min(threads, MAX_CHUNKS));
+        this.threshold = Math.max(1, threshold);
+        if(this.threads > 1){
+            workers = Executors.newFixedThreadPool(this.threads - 1, new ThreadFactory() {
+                private int made = 0;
+
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread t = new Thread(r, "WorldWorker-" + made++);
+                    //Never keeps the app alive on its own
+                    t.setDaemon(true);
+                    return t;
+                }
+            });
+        } else {
+            workers = null;
+        }//if
+    }
+
+    /**
+     * Work out how many chunks a loop will be split into
+     * @param count The number of items in the loop
+     * @return The number of chunks, 1 if the loop runs on the calling thread only
+     */
+    public int chunksFor(int count) {
+        if(workers == null || count < threshold){
+            return 1;
+        }//if
+        //A few chunks per thread so a thread that gets descheduled does not hold everyone up
+        return Math.max(1, Math.min(Math.min(threads * 4, MAX_CHUNKS), count / MIN_CHUNK_SIZE));
+    }
+
+    /**
+     * Run a loop, returning once every chunk is done
+     * @param count The number of items
+     * @param task The work for each chunk
+     * @throws RuntimeException If a chunk threw one (or an Error, which is thrown as it is), once every other chunk is done
+     */
+    public void run(int count, Task task) {
+        int chunks = chunksFor(count);
+        if(chunks == 1){
+            task.run(0, 0, count);
+            return;
+        }//if
+        this.task = task;
+        this.count = count;
+        this.chunks = chunks;
+        failure = null;
+        caller = Thread.currentThread();
+        remaining.set(chunks);
+        nextChunk.set(0);
+        int helping = Math.min(threads - 1, chunks - 1);
+        helpers.set(helping);
+        for(int i = 0; i < helping; i++){
+            workers.execute(helper);
+        }//for
+
+        runChunks();
+        //Waiting for the helpers as well means none of them can wake up late and take a chunk from the next loop
+        while(remaining.get() > 0 || helpers.get() > 0){
+            LockSupport.park(this);
+        }//while
+        this.task = null;
+        Throwable t = failure;
+        failure = null;
+        if(t instanceof RuntimeException){
+            throw (RuntimeException) t;
+        } else if(t instanceof Error){
+            throw (Error) t;
+        } else if(t != null){
+            throw new RuntimeException(t);
+        }//if
+    }
+
+    /**
+     * Take chunks until there are none left
+     */
+    private void runChunks() {
+        int c;
+        while((c = nextChunk.getAndIncrement()) < chunks){
+            try {
+                task.run(c, (int) ((long) count * c / chunks), (int) ((long) count * (c + 1) / chunks));
+            } catch (Throwable e) {
+                //Caught even if it is an Error, so every chunk still finishes and the caller is not left waiting
+                failure = e;
+            } finally {
+                if(remaining.decrementAndGet() == 0){
+                    LockSupport.unpark(caller);
+                }//if
+            }//finally
+        }//while
+    }
+
+    /**
+     * Stop the worker threads. The runner cannot be used afterwards.
+     */
+    public void shutdown() {
+        if(workers != null){
+            workers.shutdown();
+        }//if
+    }
+
+    /**
+     * @return How many threads work on a loop, including the calling one
+     */
+    public int getThreads() {
+        return threads;
+    }
+}
@@ -0,0 +1,155 @@
+package alec.is.awesome.spaceinvaders.core;
+
+import java.io.PrintWriter;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measurements of how long the game takes to run, split by thread so a slowdown can be traced
+ * to either the game loop or the drawing. The game thread records ticks, the drawing thread
+ * records frames and the UI thread records vsyncs, all without locks.
+ */
+public class PerformanceStats {
+    private static final long ONE_SECOND = 1000000000L;
+
+    private final Histogram tickTime = new Histogram("tick time (ns)", ONE_SECOND);
+    private final Histogram tickAllocations = new Histogram("bytes allocated per tick", 1 << 30);
+    private final Histogram entities = new Histogram("entities per tick", 1 << 20);
+    private final Histogram drawTime = new Histogram("draw time (ns)", ONE_SECOND);
+    private final Histogram frameInterval = new Histogram("time between vsyncs (ns)", ONE_SECOND);
+    private final Histogram inputToTick = new Histogram("input to tick (ns)", ONE_SECOND);
+    private final Histogram inputToDraw = new Histogram("input to draw (ns)", ONE_SECOND);
+    private final AtomicLong droppedFrames = new AtomicLong();
+    private long lastVsync = 0; //Only used by the UI thread
+
+    /**
+     * Record one tick of the game. Called by the game thread.
+     * @param nanos How long the tick took
+     * @param entityCount How many Entities were in the World after the tick
+     * @param allocatedBytes How many bytes the tick allocated, or a negative number if unknown
+     */
+    public void recordTick(long nanos, int entityCount, long allocatedBytes) {
+        tickTime.record(nanos);
+        entities.record(entityCount);
+        if(allocatedBytes >= 0){
+            tickAllocations.record(allocatedBytes);
+        }//if
+    }
+
+    /**
+     * Record how long a player's input waited before a tick carried it out. Called by the game thread.
+     * @param nanos The time from the input happening to the tick
+     */
+    public void recordInput(long nanos) {
+        inputToTick.record(nanos);
+    }
+
+    /**
+     * Record how long it took for a player's input to first be drawn. Called by whichever thread draws.
+     * @param nanos The time from the input happening to the frame being drawn
+     */
+    public void recordInputDrawn(long nanos) {
+        inputToDraw.record(nanos);
+    }
+
+    /**
+     * Record drawing one frame. Called by whichever thread draws.
+     * @param nanos How long drawing the frame took
+     */
+    public void recordDraw(long nanos) {
+        drawTime.record(nanos);
+    }
+
+    /**
+     * Record a vsync from the Choreographer. If more than one display refresh passed since the last
+     * one then the frames in between were dropped. Only call this from the UI thread.
+     * @param frameTimeNanos The time the frame started, from the Choreographer
+     * @param refreshNanos How long one display refresh takes
+     */
+    public void recordVsync(long frameTimeNanos, long refreshNanos) {
+        long last = lastVsync;
+        lastVsync = frameTimeNanos;
+        if(last == 0 || frameTimeNanos <= last){
+            return;
+        }//if
+        long interval = frameTimeNanos - last;
+        frameInterval.record(interval);
+        //Half a refresh of slack so that timing jitter is not counted as a drop
+        long missed = (interval + refreshNanos / 2) / refreshNanos - 1;
+        if(missed > 0){
+            droppedFrames.addAndGet(missed);
+        }//if
+    }
+
+    /**
+     * Forget the vsync time so that the time spent not rendering is not counted as dropped frames.
+     * Only call this from the UI thread.
+     */
+    public void stopVsync() {
+        lastVsync = 0;
+    }
+
+    /**
+     * Forget everything, for example at the start of a new game
+     */
+    public void reset() {
+        tickTime.reset();
+        tickAllocations.reset();
+        entities.reset();
+        drawTime.reset();
+        frameInterval.reset();
+        inputToTick.reset();
+        inputToDraw.reset();
+        droppedFrames.set(0);
+    }
+
+    public Histogram getTickTime() {
+        return tickTime;
+    }
+
+    public Histogram getTickAllocations() {
+        return tickAllocations;
+    }
+
+    public Histogram getEntities() {
+        return entities;
+    }
+
+    public Histogram getDrawTime() {
+        return drawTime;
+    }
+
+    public Histogram getFrameInterval() {
+        return frameInterval;
+    }
+
+    public Histogram getInputToTick() {
+        return inputToTick;
+    }
+
+    public Histogram getInputToDraw() {
+        return inputToDraw;
+    }
+
+    /**
+     * @return How many display refreshes passed without a frame since the last reset
+     */
+    public long getDroppedFrames() {
+        return droppedFrames.get();
+    }
+
+    /**
+     * Write every histogram as text
+     * @param out Where to write the report
+     */
+    public void writeTo(PrintWriter out) {
+        out.println("# dropped frames=" + getDroppedFrames());
+        tickTime.writeTo(out);
+        tickAllocations.writeTo(out);
+        entities.writeTo(out);
+        drawTime.writeTo(out);
+        frameInterval.writeTo(out);
+        inputToTick.writeTo(out);
+        inputToDraw.writeTo(out);
+        out.flush();
+    }
+}
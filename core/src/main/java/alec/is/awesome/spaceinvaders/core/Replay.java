@@ -0,0 +1,232 @@
+package alec.is.awesome.spaceinvaders.core;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * A game recorded by a ReplayWriter, which can be played again without a screen to get exactly the
+ * same result. Useful for reproducing a bug from a real game, and as a repeatable workload for benchmarks.
+ */
+public class Replay {
+    private final byte[] data;
+    private final long seed;
+    private final long stepNanos;
+    private final int width;
+    private final int height;
+    private final boolean dataOriented;
+    private final String waves; //The waves file of the game's SpawnDirector
+    private final int eventsStart; //Where the first event is in data
+
+    private int position; //Where the next byte is read from, only used while reading or playing
+
+    /**
+     * Read a replay from a stream
+     * @param in The stream to read. It is read to the end but not closed.
+     * @return The replay
+     * @throws IOException If the stream cannot be read or does not hold a replay
+     */
+    public static Replay read(InputStream in) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int n;
+        while((n = in.read(buffer)) != -1){
+            bytes.write(buffer, 0, n);
+        }//while
+        return new Replay(bytes.toByteArray());
+    }
+
+    /**
+     * @param data A recording from ReplayWriter
+     * @throws IOException If the data is not a replay this version can play
+     */
+    public Replay(byte[] data) throws IOException {
+        this.data = data;
+        try {
+            if(readInt() != ReplayWriter.MAGIC){
+                throw new IOException("Not a replay");
+            }//if
+            int version = readByte();
+            if(version != ReplayWriter.VERSION){
+                throw new IOException("Unknown replay version " + version);
+            }//if
+            seed = readLong();
+            stepNanos = readLong();
+            width = readInt();
+            height = readInt();
+            dataOriented = readByte() != 0;
+            int length = (int) readVarint();
+            waves = new String(data, position, length, ReplayWriter.UTF8);
+            position += length;
+        } catch (IndexOutOfBoundsException e) {
+            throw new IOException("Replay is cut short");
+        } catch (IllegalArgumentException e) {
+            throw new IOException(e.getMessage());
+        }//catch
+        eventsStart = position;
+    }
+
+    /**
+     * Make a World in the state the recorded game started in
+     * @return A new World that play can be given
+     */
+    public World createWorld() {
+        World world = new World(width, height, dataOriented);
+        try {
+            world.setSpawnDirector(SpawnDirector.parse(waves));
+        } catch (IllegalArgumentException e) {
+            //Only possible if the replay was changed after it was written, as the waves were checked when they were first read
+            throw new IllegalStateException("Replay has invalid waves", e);
+        }//catch
+        world.reset(seed);
+        return world;
+    }
+
+    /**
+     * Play the whole game again in a new World
+     * @return The World at the end of the game
+     * @throws IllegalArgumentException If the recording is cut short or damaged
+     */
+    public World play() {
+        World world = createWorld();
+        play(world);
+        return world;
+    }
+
+    /**
+     * Play the game again, applying every recorded input and resize on the tick it happened.
+     * Stops at the end of the recording or as soon as the game is won or lost.
+     * @param world A World from createWorld
+     * @return The number of ticks that were stepped
+     * @throws IllegalArgumentException If the recording is cut short or damaged. The World has been
+     * played up to the damage and should be thrown away.
+     */
+    public long play(World world) {
+        try {
+            return playEvents(world);
+        } catch (IndexOutOfBoundsException e) {
+            //Reading past the end of data, from an event that was cut off part way through
+            throw new IllegalArgumentException("Replay is cut short", e);
+        }//catch
+    }
+
+    private long playEvents(World world) {
+        position = eventsStart;
+        long tick = 0;
+        long eventTick = 0;
+        while(position < data.length){
+            int type = readByte();
+            eventTick += readVarint();
+            //Step up to the tick the event happened on
+            while(tick < eventTick){
+                world.step(stepNanos);
+                tick++;
+                if(world.getOutcome() != World.IN_PROGRESS){
+                    return tick;
+                }//if
+            }//while
+            if(type == ReplayWriter.END){
+                return tick;
+            } else if(type == ReplayWriter.RESIZE){
+                int width = (int) readVarint();
+                int height = (int) readVarint();
+                if(width <= 0 || height <= 0){
+                    throw new IllegalArgumentException("Replay resizes to " + width + "x" + height);
+                }//if
+                world.setBounds(width, height);
+            } else if(type == InputQueue.STEER){
+                world.apply(type, Double.longBitsToDouble(readLong()));
+            } else if(type == InputQueue.STOP || type == InputQueue.FIRE){
+                world.apply(type, 0);
+            } else {
+                throw new IllegalArgumentException("Unknown replay event " + type);
+            }//if
+        }//while
+        //Every recording finishes with END
+        throw new IllegalArgumentException("Replay is cut short");
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public long getStepNanos() {
+        return stepNanos;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public boolean isDataOriented() {
+        return dataOriented;
+    }
+
+    public String getWaves() {
+        return waves;
+    }
+
+    private int readByte() {
+        return data[position++] & 0xFF;
+    }
+
+    private int readInt() {
+        int v = 0;
+        for(int i = 0; i < 4; i++){
+            v = (v << 8) | readByte();
+        }//for
+        return v;
+    }
+
+    private long readLong() {
+        long v = 0;
+        for(int i = 0; i < 8; i++){
+            v = (v << 8) | readByte();
+        }//for
+        return v;
+    }
+
+    private long readVarint() {
+        long v = 0;
+        int shift = 0;
+        int b;
+        do {
+            b = readByte();
+            if(shift > 63){
+                throw new IllegalArgumentException("Replay has a number that is too long");
+            }//if
+            v |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while((b & 0x80) != 0);
+        return v;
+    }
+
+    /**
+     * Play a replay file without a screen and print how the game ended.
+     * Usage: Replay &lt;file&gt;
+     */
+    public static void main(String[] args) throws IOException {
+        if(args.length != 1){
+            System.err.println("Usage: Replay <file>");
+            System.exit(2);
+        }//if
+        FileInputStream in = new FileInputStream(args[0]);
+        Replay replay;
+        try {
+            replay = read(in);
+        } finally {
+            in.close();
+        }//finally
+        World world = replay.createWorld();
+        long start = System.nanoTime();
+        long ticks = replay.play(world);
+        long nanos = System.nanoTime() - start;
+        System.out.println("seed=" + replay.getSeed() + " ticks=" + ticks + " outcome=" + world.getOutcome()
+                + " kills=" + world.getNumAliensShot() + " time=" + nanos / 1000000 + "ms");
+    }
+}
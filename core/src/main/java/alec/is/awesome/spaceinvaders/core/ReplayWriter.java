@@ -0,0 +1,148 @@
+package alec.is.awesome.spaceinvaders.core;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+/**
+ * Records a game as its seed plus every input and resize, with the tick it happened on, so that
+ * Replay can play the game again exactly. The recording is kept in memory in a compact binary form
+ * (a few bytes per input) and written out in one go when the game is over.
+ * Only the game thread should use a writer.
+ *
+ * The format is big endian: the header is the magic number, a version byte, the seed, the tick length
+ * in nanoseconds, the width and height of the playing area, whether the World is data oriented and the
+ * waves file of its SpawnDirector (a varint length followed by UTF-8), so a replay does not depend on
+ * the waves the game is shipped with later.
+ * After that each event is a type byte, the number of ticks since the last event as a varint, and
+ * the event's data (a double for STEER, two varints for RESIZE, nothing for the rest).
+ * The last event is END, whose tick is the total number of ticks in the game.
+ */
+public class ReplayWriter {
+    static final int MAGIC = 0x53495250; //"SIRP"
+    static final int VERSION = 2;
+    static final Charset UTF8 = Charset.forName("UTF-8");
+
+    //Event types. The input types are the same numbers as InputQueue.STEER, STOP and FIRE.
+    static final int RESIZE = 3;
+    static final int END = 4;
+
+    private byte[] data = new byte[4096];
+    private int size = 0;
+    private long lastTick = 0;
+
+    /**
+     * Forget any earlier recording and start a new one. Call this straight after the World is reset.
+     * @param world The World the game is played in
+     * @param stepNanos The length of every tick
+     */
+    public void begin(World world, long stepNanos) {
+        size = 0;
+        lastTick = 0;
+        writeInt(MAGIC);
+        writeByte(VERSION);
+        writeLong(world.getSeed());
+        writeLong(stepNanos);
+        writeInt(world.getWidth());
+        writeInt(world.getHeight());
+        writeByte(world.isDataOriented() ? 1 : 0);
+        byte[] waves = world.getSpawnDirector().getSource().getBytes(UTF8);
+        writeVarint(waves.length);
+        for(byte b : waves){
+            writeByte(b);
+        }//for
+    }
+
+    /**
+     * Record a command that was given to World.apply
+     * @param tick How many ticks had been stepped when it was applied
+     * @param type InputQueue.STEER, STOP or FIRE
+     * @param value The command's argument
+     */
+    public void recordInput(long tick, int type, double value) {
+        writeEvent(type, tick);
+        if(type == InputQueue.STEER){
+            writeLong(Double.doubleToLongBits(value));
+        }//if
+    }
+
+    /**
+     * Record a change to the size of the playing area
+     * @param tick How many ticks had been stepped when it changed
+     * @param width The new width
+     * @param height The new height
+     */
+    public void recordResize(long tick, int width, int height) {
+        writeEvent(RESIZE, tick);
+        writeVarint(width);
+        writeVarint(height);
+    }
+
+    /**
+     * Mark the end of the game
+     * @param ticks How many ticks the game lasted
+     */
+    public void finish(long ticks) {
+        writeEvent(END, ticks);
+    }
+
+    /**
+     * Write the recording
+     * @param out Where to write it. It is not closed.
+     * @throws IOException If out cannot be written to
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        out.write(data, 0, size);
+    }
+
+    /**
+     * @return A copy of the recording
+     */
+    public byte[] toByteArray() {
+        return Arrays.copyOf(data, size);
+    }
+
+    /**
+     * @return The size of the recording in bytes
+     */
+    public int size() {
+        return size;
+    }
+
+    private void writeEvent(int type, long tick) {
+        writeByte(type);
+        writeVarint(tick - lastTick);
+        lastTick = tick;
+    }
+
+    private void writeByte(int b) {
+        if(size == data.length){
+            data = Arrays.copyOf(data, size * 2);
+        }//if
+        data[size++] = (byte) b;
+    }
+
+    private void writeInt(int v) {
+        for(int shift = 24; shift >= 0; shift -= 8){
+            writeByte(v >>> shift);
+        }//for
+    }
+
+    private void writeLong(long v) {
+        for(int shift = 56; shift >= 0; shift -= 8){
+            writeByte((int) (v >>> shift));
+        }//for
+    }
+
+    /**
+     * Seven bits per byte, lowest first, with the top bit set on every byte but the last
+     */
+    private void writeVarint(long v) {
+        while((v & ~0x7FL) != 0){
+            writeByte((int) ((v & 0x7F) | 0x80));
+            v >>>= 7;
+        }//while
+        writeByte((int) v);
+    }
+}
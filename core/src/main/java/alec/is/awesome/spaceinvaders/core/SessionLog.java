@@ -0,0 +1,262 @@
+package alec.is.awesome.spaceinvaders.core;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Every game ever played on this device, kept in a file that is only ever added to.
+ *
+ * The log file is a header (a magic number, the version and how many records there are) followed by
+ * the SessionRecords one after another, SessionRecord.SIZE bytes each, so any record can be found
+ * without reading the others. It is mapped into memory, so adding a record is a copy into memory.
+ * The count in the header is changed after the record is written, so a record that was only partly
+ * written when the process died is never read.
+ *
+ * The best TOP_SIZE scores are kept in order in a small index file next to the log, so the high scores
+ * can be found straight away however many games there are. The index remembers how many records it
+ * has seen, and any records added after that are checked when the log is opened, so a lost or out of
+ * date index is rebuilt from the log.
+ *
+ * Every method can be called from any thread, but writing to the files is slow enough that it should
+ * not be done on the game thread or the UI thread.
+ */
+public class SessionLog {
+    /**
+     * How many of the best scores the index keeps
+     */
+    public static final int TOP_SIZE = 100;
+
+    private static final int LOG_MAGIC = 0x5349534c; //"SISL"
+    private static final int INDEX_MAGIC = 0x53495349; //"SISI"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 16;
+    private static final int COUNT_OFFSET = 8; //Where the number of records is in the header
+
+    private final File logFile;
+    private final File indexFile;
+    private MappedByteBuffer log; //The whole log file, which is grown in powers of two as records are added
+    private int count; //How many records are in the log
+
+    private final int[] topScores = new int[TOP_SIZE]; //The best scores, highest first
+    private final int[] topRecords = new int[TOP_SIZE]; //The index of the record each of them is from
+    private int topCount = 0;
+    private boolean indexChanged = false; //true if the index file is out of date
+
+    /**
+     * Open the log, making it if it does not exist
+     * @param logFile Where the records are kept
+     * @param indexFile Where the index of the best scores is kept
+     * @throws IOException If the log cannot be read or made, or is not a log
+     */
+    public SessionLog(File logFile, File indexFile) throws IOException {
+        this.logFile = logFile;
+        this.indexFile = indexFile;
+        boolean exists = logFile.length() >= HEADER_SIZE;
+        log = map(Math.max(logFile.length(), HEADER_SIZE + 64 * SessionRecord.SIZE));
+        if(!exists){
+            log.putInt(0, LOG_MAGIC);
+            log.putInt(4, VERSION);
+            log.putInt(COUNT_OFFSET, 0);
+        } else if(log.getInt(0) != LOG_MAGIC || log.getInt(4) != VERSION){
+            throw new IOException(logFile + " is not a session log");
+        }//if
+        count = Math.min(Math.max(0, log.getInt(COUNT_OFFSET)), (log.capacity() - HEADER_SIZE) / SessionRecord.SIZE);
+        readIndex();
+    }
+
+    /**
+     * Add a game to the end of the log. It is in the file once this returns, but may only be in memory
+     * until flush is called or the system writes it out on its own.
+     * @param record The game to add
+     * @throws IOException If the log needed to grow and could not
+     */
+    public synchronized void append(SessionRecord record) throws IOException {
+        int position = HEADER_SIZE + count * SessionRecord.SIZE;
+        if(position + SessionRecord.SIZE > log.capacity()){
+            log = map(Integer.highestOneBit(position + SessionRecord.SIZE - 1) << 1);
+        }//if
+        log.position(position);
+        record.writeTo(log);
+        count++;
+        log.putInt(COUNT_OFFSET, count);
+        addToTop(count - 1, record.getScore());
+    }
+
+    /**
+     * Make sure everything appended so far is on the storage, and save the index.
+     * Best called once after appending a batch of records rather than after each one.
+     * @throws IOException If the index could not be saved
+     */
+    public synchronized void flush() throws IOException {
+        log.force();
+        if(indexChanged){
+            writeIndex();
+        }//if
+    }
+
+    /**
+     * @return How many games are in the log
+     */
+    public synchronized int getCount() {
+        return count;
+    }
+
+    /**
+     * Read one game from the log
+     * @param index Which game, the first is 0
+     * @return The game
+     */
+    public synchronized SessionRecord get(int index) {
+        if(index < 0 || index >= count){
+            throw new IndexOutOfBoundsException("Session " + index + " of " + count);
+        }//if
+        ByteBuffer in = log.duplicate();
+        in.position(HEADER_SIZE + index * SessionRecord.SIZE);
+        return SessionRecord.read(in);
+    }
+
+    /**
+     * Find the games with the highest scores. Games with the same score are in the order they were played.
+     * @param n How many games to find, at most TOP_SIZE
+     * @return The games, best first
+     */
+    public synchronized List<SessionRecord> getTop(int n) {
+        n = Math.min(n, topCount);
+        List<SessionRecord> top = new ArrayList<>(n);
+        for(int i = 0; i < n; i++){
+            top.add(get(topRecords[i]));
+        }//for
+        return top;
+    }
+
+    /**
+     * @return The highest score of any game, or 0 if there are none
+     */
+    public synchronized int getBestScore() {
+        return topCount == 0 ? 0 : topScores[0];
+    }
+
+    /**
+     * Add a record's score to the best scores if it is good enough
+     */
+    private void addToTop(int record, int score) {
+        if(topCount == TOP_SIZE && score <= topScores[TOP_SIZE - 1]){
+            return;
+        }//if
+        int i = Math.min(topCount, TOP_SIZE - 1);
+        while(i > 0 && topScores[i - 1] < score){
+            topScores[i] = topScores[i - 1];
+            topRecords[i] = topRecords[i - 1];
+            i--;
+        }//while
+        topScores[i] = score;
+        topRecords[i] = record;
+        topCount = Math.min(topCount + 1, TOP_SIZE);
+        indexChanged = true;
+    }
+
+    /**
+     * Load the best scores from the index file, then add any records it has not seen.
+     * If the index is missing or not valid it is rebuilt from the whole log.
+     */
+    private void readIndex() {
+        int seen = 0;
+        try {
+            seen = loadIndex();
+        } catch (IOException e) {
+            //Rebuilt below
+            topCount = 0;
+        }//catch
+        if(seen < 0 || seen > count){
+            topCount = 0;
+            seen = 0;
+        }//if
+        for(int i = seen; i < count; i++){
+            addToTop(i, SessionRecord.readScore(log, HEADER_SIZE + i * SessionRecord.SIZE));
+        }//for
+        indexChanged = seen != count;
+    }
+
+    /**
+     * @return How many records the index had seen, or -1 if it is missing or not an index
+     */
+    private int loadIndex() throws IOException {
+        if(!indexFile.exists()){
+            return -1;
+        }//if
+        RandomAccessFile raf = new RandomAccessFile(indexFile, "r");
+        try {
+            byte[] bytes = new byte[(int) Math.min(raf.length(), HEADER_SIZE + 8 * TOP_SIZE)];
+            raf.readFully(bytes);
+            ByteBuffer in = ByteBuffer.wrap(bytes);
+            if(bytes.length < HEADER_SIZE || in.getInt() != INDEX_MAGIC || in.getInt() != VERSION){
+                return -1;
+            }//if
+            int seen = in.getInt();
+            int size = in.getInt();
+            if(size < 0 || size > TOP_SIZE || in.remaining() < 8 * size){
+                return -1;
+            }//if
+            for(int i = 0; i < size; i++){
+                topScores[i] = in.getInt();
+                topRecords[i] = in.getInt();
+                if(topRecords[i] < 0 || topRecords[i] >= count){
+                    topCount = 0;
+                    return -1;
+                }//if
+            }//for
+            topCount = size;
+            return seen;
+        } finally {
+            raf.close();
+        }//finally
+    }
+
+    /**
+     * Save the best scores to the index file. It is written to another file first and then renamed,
+     * so the index file is always either the old index or the new one.
+     */
+    private void writeIndex() throws IOException {
+        ByteBuffer out = ByteBuffer.allocate(HEADER_SIZE + 8 * topCount);
+        out.putInt(INDEX_MAGIC);
+        out.putInt(VERSION);
+        out.putInt(count);
+        out.putInt(topCount);
+        for(int i = 0; i < topCount; i++){
+            out.putInt(topScores[i]);
+            out.putInt(topRecords[i]);
+        }//for
+        File temp = new File(indexFile.getPath() + ".tmp");
+        RandomAccessFile raf = new RandomAccessFile(temp, "rw");
+        try {
+            raf.setLength(0);
+            raf.write(out.array());
+            raf.getFD().sync();
+        } finally {
+            raf.close();
+        }//finally
+        if(!temp.renameTo(indexFile)){
+            throw new IOException("Could not replace " + indexFile);
+        }//if
+        indexChanged = false;
+    }
+
+    /**
+     * Map the start of the log file into memory, growing the file if it is smaller.
+     * The mapping stays valid after the file is closed.
+     */
+    private MappedByteBuffer map(long size) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(logFile, "rw");
+        try {
+            return raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+        } finally {
+            raf.close();
+        }//finally
+    }
+}
@@ -0,0 +1,139 @@
+package alec.is.awesome.spaceinvaders.core;
+
+import java.nio.ByteBuffer;
+
+/**
+ * What happened in one game and how well the device ran it, as kept in a SessionLog.
+ * Every record is SIZE bytes when written, so the log can find any record without reading the others.
+ */
+public class SessionRecord {
+    /**
+     * How many bytes writeTo writes. There is room left over for more fields without changing the size.
+     */
+    public static final int SIZE = 64;
+
+    private final long startMillis;
+    private final long durationNanos;
+    private final int score;
+    private final int outcome;
+    private final int peakEntities;
+    private final long tickP50;
+    private final long tickP99;
+    private final long tickMax;
+
+    /**
+     * @param startMillis When the game started, from System.currentTimeMillis. Together with durationNanos
+     * this should cover the game's simulated time, so time spent paused or away is left out.
+     * @param durationNanos How much time was simulated
+     * @param score How many aliens were shot
+     * @param outcome How the game ended, one of the World outcomes
+     * @param peakEntities The most Entities there were in the World at once
+     * @param tickP50 The median time a tick took, in nanoseconds
+     * @param tickP99 The 99th percentile time a tick took, in nanoseconds
+     * @param tickMax The longest a tick took, in nanoseconds
+     */
+    public SessionRecord(long startMillis, long durationNanos, int score, int outcome, int peakEntities, long tickP50, long tickP99, long tickMax) {
+        this.startMillis = startMillis;
+        this.durationNanos = durationNanos;
+        this.score = score;
+        this.outcome = outcome;
+        this.peakEntities = peakEntities;
+        this.tickP50 = tickP50;
+        this.tickP99 = tickP99;
+        this.tickMax = tickMax;
+    }
+
+    /**
+     * Make the record of a game that has just ended
+     * @param world The World the game was played in
+     * @param startMillis When the game started, from System.currentTimeMillis, set back by any time that was
+     * simulated before this was measured (for example before the game was saved and restored)
+     * @param peakEntities The most Entities there were in the World at once
+     * @param tickTime How long every tick of the game took, in nanoseconds
+     * @return The record
+     */
+    public static SessionRecord of(World world, long startMillis, int peakEntities, Histogram tickTime) {
+        return new SessionRecord(startMillis, world.getElapsedNanos(), world.getNumAliensShot(), world.getOutcome(), peakEntities,
+                tickTime.getPercentile(50), tickTime.getPercentile(99), tickTime.getMax());
+    }
+
+    /**
+     * Write the record as SIZE bytes
+     * @param out Where to write, starting at its position
+     */
+    public void writeTo(ByteBuffer out) {
+        int start = out.position();
+        out.putLong(startMillis);
+        out.putLong(durationNanos);
+        out.putInt(score);
+        out.putInt(outcome);
+        out.putInt(peakEntities);
+        out.putLong(tickP50);
+        out.putLong(tickP99);
+        out.putLong(tickMax);
+        while(out.position() < start + SIZE){
+            out.put((byte) 0);
+        }//while
+    }
+
+    /**
+     * Read a record written by writeTo
+     * @param in Where to read from, starting at its position. SIZE bytes are read.
+     * @return The record
+     */
+    public static SessionRecord read(ByteBuffer in) {
+        int start = in.position();
+        SessionRecord record = new SessionRecord(in.getLong(), in.getLong(), in.getInt(), in.getInt(), in.getInt(), in.getLong(), in.getLong(), in.getLong());
+        in.position(start + SIZE);
+        return record;
+    }
+
+    /**
+     * Find the score of a record without reading the rest of it
+     * @param in Holds the record
+     * @param index Where the record starts
+     * @return The score
+     */
+    static int readScore(ByteBuffer in, int index) {
+        return in.getInt(index + 16);
+    }
+
+    public long getStartMillis() {
+        return startMillis;
+    }
+
+    public long getDurationNanos() {
+        return durationNanos;
+    }
+
+    public int getScore() {
+        return score;
+    }
+
+    public int getOutcome() {
+        return outcome;
+    }
+
+    public int getPeakEntities() {
+        return peakEntities;
+    }
+
+    public long getTickP50() {
+        return tickP50;
+    }
+
+    public long getTickP99() {
+        return tickP99;
+    }
+
+    public long getTickMax() {
+        return tickMax;
+    }
+
+    /**
+     * @return How many aliens were shot for every second of the game
+     */
+    public double getKillsPerSecond() {
+        return durationNanos == 0 ? 0 : score * 1e9 / durationNanos;
+    }
+}
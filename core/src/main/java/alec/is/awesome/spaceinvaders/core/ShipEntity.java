@@ -0,0 +1,64 @@
+package alec.is.awesome.spaceinvaders.core;
+
+/**
+ * Created by Alec Krawciw on 2017-05-03.
+ */
+
+/**
+ * A sub-class of Entity that represents the player
+ */
+public class ShipEntity extends Entity {
+    private boolean destroyed = false; //Set once anything has hit the ship
+
+    /**
+     * The constructor passes standard information to the super constructor
+     * @param world The World the ship is in
+     */
+    public ShipEntity(World world) {
+        super(world, Sprite.PLAYER_SHIP, 0, 0, world.getWidth() / 2 - dims(world) / 2, world.getHeight() - dims(world) - 10, dims(world), dims(world));
+    }
+
+    /**
+     * The width and height. It is easier to make a method rather than hardcode it
+     * @param world The World the ship is in
+     * @return The width and height of the ship in pixels
+     */
+    public static int dims(World world) {
+        return 100 * world.getWidth() / 1005;
+    }
+
+    /**
+     * If the hitbox is going off the screen move the ship such that it is on the screen
+     */
+    @Override
+    public void checkHitBox() {
+        if(getHitBox().right > world.getWidth()){
+            setX(world.getWidth() - getWidth());
+        } else if(getHitBox().left < 0){
+            setX(0);
+        }
+    }
+
+    /**
+     * Anything that hits the ship, an alien or an enemy shot, destroys it.
+     * @param other The Entity that collided with this Entity
+     */
+    @Override
+    public void collideAction(Entity other) {
+        hit();
+    }
+
+    /**
+     * Destroy the ship. Used directly for things that are not Entity objects, such as aliens and shots in a Swarm.
+     */
+    public void hit() {
+        destroyed = true;
+    }
+
+    /**
+     * @return true once the ship has been hit, which loses the game
+     */
+    public boolean isDestroyed() {
+        return destroyed;
+    }
+}
@@ -0,0 +1,74 @@
+package alec.is.awesome.spaceinvaders.core;
+
+/**
+ * Created by Alec Krawciw on 2017-05-03.
+ */
+
+/**
+ * Sub class of Entity. This class is used to represent
+ * the lasers shot by the player.
+ */
+public class Shot extends Entity {
+    /**
+     * The vertical velocity of every shot, in pixels per millisecond. Negative is up the screen.
+     */
+    public static final double SPEED = -0.5;
+
+    /**
+     * Constructor that fills in standard information but accepts the startnig location of the shot
+     * @param world The World the shot is fired in
+     * @param x The horizontal position of the shot
+     * @param y The vertical position of the shot
+     */
+    public Shot(World world, double x, double y) {
+        super(world, Sprite.PLAYER_LASER, 0, SPEED, x, y, width(world), height(world));
+    }
+
+    /**
+     * Reuse this shot as if it had just been fired
+     * @param x The horizontal position of the shot
+     * @param y The vertical position of the shot
+     */
+    public void reset(double x, double y) {
+        init(0, SPEED, x, y, width(world), height(world));
+    }
+
+    /**
+     * Helper method that makes dimensions easier than hardcoding
+     * @param world The World the shot is in
+     * @return The width of a shot in pixels
+     */
+    public static int width(World world) {
+        return 10 * world.getWidth() / 1005;
+    }
+
+    /**
+     * Helper method that makes dimensions easier than hardcoding
+     * @param world The World the shot is in
+     * @return The height of a shot in pixels
+     */
+    public static int height(World world) {
+        return 40 * world.getWidth() / 1005;
+    }
+
+    /**
+     * Currently we remove the shot if it has left the screen.
+     */
+    @Override
+    public void checkHitBox() {
+        if(!HitBox.intersects(getHitBox(), world.getBounds())){
+            valid = false;
+        }//if
+    }//checkHitBox
+
+    /**
+     * Currently the entity is purely removed if it collides with
+     * any other Entity.
+     * @param other The Entity that collided with this Entity
+     */
+    @Override
+    public void collideAction(Entity other) {
+        valid = false;
+    }//collideAction
+
+}
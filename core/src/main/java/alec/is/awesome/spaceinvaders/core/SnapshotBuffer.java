@@ -0,0 +1,47 @@
+package alec.is.awesome.spaceinvaders.core;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Passes FrameSnapshots from the game thread to the thread that draws the screen without locks.
+ * There are three snapshots: one the game thread is writing, one the screen is drawing, and the
+ * most recently finished one waiting in the middle. Publishing and reading just swap a snapshot
+ * with the middle one, so neither thread ever waits for the other and the screen always draws
+ * a complete frame.
+ */
+public class SnapshotBuffer {
+    private static final int INDEX_MASK = 3;
+    private static final int FRESH = 4; //Set when the middle snapshot has not been read yet
+
+    private final FrameSnapshot[] frames = {new FrameSnapshot(), new FrameSnapshot(), new FrameSnapshot()};
+    private final AtomicInteger middle = new AtomicInteger(2);
+    private int writeIndex = 0; //Only used by the game thread
+    private int readIndex = 1; //Only used by the drawing thread
+
+    /**
+     * Get the snapshot for the game thread to fill in. Only call this from the game thread.
+     * @return The snapshot to fill in before calling publish
+     */
+    public FrameSnapshot beginWrite() {
+        return frames[writeIndex];
+    }
+
+    /**
+     * Hand the snapshot from beginWrite over to the drawing thread.
+     */
+    public void publish() {
+        writeIndex = middle.getAndSet(writeIndex | FRESH) & INDEX_MASK;
+    }
+
+    /**
+     * Get the newest finished snapshot. Only call this from the drawing thread. The snapshot
+     * will not change until the next call to acquire.
+     * @return The most recent complete frame
+     */
+    public FrameSnapshot acquire() {
+        if((middle.get() & FRESH) != 0){
+            readIndex = middle.getAndSet(readIndex) & INDEX_MASK;
+        }//if
+        return frames[readIndex];
+    }
+}
@@ -0,0 +1,219 @@
+package alec.is.awesome.spaceinvaders.core;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A uniform grid used to quickly find which Entities might be touching a rectangle.
+ * The screen is split into square cells and every Entity is stored in each cell its
+ * hitbox overlaps. Looking up a rectangle then only has to check the Entities in the
+ * few cells it covers instead of every Entity in the game.
+ * Cells are stored in a hash table of linked lists kept in plain arrays, so once the
+ * arrays are big enough clearing and refilling the grid every tick creates no garbage.
+ */
+public class SpatialHash {
+    private int cellSize; //The width and height of one cell in pixels
+
+    private int[] buckets = new int[64]; //The first node in each bucket, -1 if it is empty
+    private int[] next = new int[64]; //The node after each node in the same bucket, -1 at the end
+    private int[] nodeCellX = new int[64]; //The cell each node was stored in
+    private int[] nodeCellY = new int[64];
+    private int[] nodeEntity = new int[64]; //The index in entities that each node refers to
+    private int nodeCount = 0;
+
+    private Entity[] entities = new Entity[32]; //Every Entity added since the last clear
+    private int[] lastSeen = new int[32]; //The query that last returned each Entity, so it is only returned once
+    private int entityCount = 0;
+    private int queryId = 0;
+    private int[] found = new int[32]; //The ids found by the last query
+
+    /**
+     * Create an empty grid
+     * @param cellSize The width and height of each cell in pixels. This should be about the size of the Entities stored.
+     */
+    public SpatialHash(int cellSize) {
+        setCellSize(cellSize);
+        Arrays.fill(buckets, -1);
+    }
+
+    /**
+     * Change the size of the cells. Only takes effect for Entities added after the next clear.
+     * @param cellSize The width and height of each cell in pixels
+     */
+    public void setCellSize(int cellSize) {
+        this.cellSize = Math.max(1, cellSize);
+    }
+
+    /**
+     * Remove every Entity from the grid. Call this at the start of each tick before adding the Entities again.
+     */
+    public void clear() {
+        Arrays.fill(buckets, -1);
+        Arrays.fill(entities, 0, entityCount, null);
+        nodeCount = 0;
+        entityCount = 0;
+    }
+
+    /**
+     * Add an Entity to every cell that its hitbox overlaps
+     * @param e The Entity to add
+     */
+    public void insert(Entity e) {
+        HitBox box = e.getHitBox();
+        int index = insert(box.left, box.top, box.right, box.bottom);
+        entities[index] = e;
+    }
+
+    /**
+     * Add a rectangle to every cell that it overlaps, for things that are not stored as Entities (see Swarm)
+     * @return The id of the rectangle, which counts up from 0 after every clear
+     */
+    public int insert(int left, int top, int right, int bottom) {
+        if(entityCount == entities.length){
+            entities = Arrays.copyOf(entities, entityCount * 2);
+            lastSeen = Arrays.copyOf(lastSeen, entityCount * 2);
+        }//if
+        int index = entityCount++;
+        lastSeen[index] = queryId;
+
+        int x1 = cell(right - 1);
+        int y1 = cell(bottom - 1);
+        for(int cy = cell(top); cy <= y1; cy++){
+            for(int cx = cell(left); cx <= x1; cx++){
+                addNode(cx, cy, index);
+            }//for
+        }//for
+        return index;
+    }
+
+    /**
+     * Find every Entity that might overlap a rectangle. Each Entity is only added once
+     * even if it is in more than one of the cells. Entities that are returned still
+     * need to be checked with collidedWith.
+     * @param box The rectangle to look for Entities in
+     * @param out The list that the possible Entities are added to
+     * @return The number of Entities added to out
+     */
+    public int query(HitBox box, List<Entity> out) {
+        int found = query(box.left, box.top, box.right, box.bottom);
+        for(int i = 0; i < found; i++){
+            out.add(entities[this.found[i]]);
+        }//for
+        return found;
+    }
+
+    /**
+     * Find the id of every rectangle that might overlap a rectangle. Each id is only found once.
+     * The ids are read with getFound and are replaced by the next query.
+     * @return The number of ids found
+     */
+    public int query(int left, int top, int right, int bottom) {
+        queryId++;
+        int found = 0;
+        int mask = buckets.length - 1;
+        int x1 = cell(right - 1);
+        int y1 = cell(bottom - 1);
+        for(int cy = cell(top); cy <= y1; cy++){
+            for(int cx = cell(left); cx <= x1; cx++){
+                for(int n = buckets[hash(cx, cy) & mask]; n != -1; n = next[n]){
+                    int index = nodeEntity[n];
+                    //Different cells can share a bucket, and an Entity can be in more than one cell
+                    if(nodeCellX[n] == cx && nodeCellY[n] == cy && lastSeen[index] != queryId){
+                        lastSeen[index] = queryId;
+                        if(found == this.found.length){
+                            this.found = Arrays.copyOf(this.found, found * 2);
+                        }//if
+                        this.found[found++] = index;
+                    }//if
+                }//for
+            }//for
+        }//for
+        return found;
+    }
+
+    /**
+     * The same as query, but it only reads the grid so any number of threads can call it at once
+     * as long as nothing is being inserted. The ids are found in the same order as query.
+     * @param out The list to add the ids to
+     * @return The number of ids added
+     */
+    public int query(int left, int top, int right, int bottom, IntList out) {
+        int start = out.size();
+        int mask = buckets.length - 1;
+        int x1 = cell(right - 1);
+        int y1 = cell(bottom - 1);
+        for(int cy = cell(top); cy <= y1; cy++){
+            for(int cx = cell(left); cx <= x1; cx++){
+                for(int n = buckets[hash(cx, cy) & mask]; n != -1; n = next[n]){
+                    int index = nodeEntity[n];
+                    //A rectangle only covers a few cells so checking what was already found is cheap
+                    if(nodeCellX[n] == cx && nodeCellY[n] == cy && !out.contains(index, start)){
+                        out.add(index);
+                    }//if
+                }//for
+            }//for
+        }//for
+        return out.size() - start;
+    }
+
+    /**
+     * @param i Which of the ids from the last query to get
+     * @return The id given by insert
+     */
+    public int getFound(int i) {
+        return found[i];
+    }
+
+    /**
+     * Store one Entity in one cell
+     */
+    private void addNode(int cx, int cy, int index) {
+        if(nodeCount == next.length){
+            int size = nodeCount * 2;
+            next = Arrays.copyOf(next, size);
+            nodeCellX = Arrays.copyOf(nodeCellX, size);
+            nodeCellY = Arrays.copyOf(nodeCellY, size);
+            nodeEntity = Arrays.copyOf(nodeEntity, size);
+        }//if
+        //Keep the table at least twice as big as the number of nodes so the lists stay short.
+        //It grows as soon as it is needed, so a tick with many more Entities than the last only allocates once.
+        if(nodeCount * 2 >= buckets.length){
+            rehash(buckets.length * 2);
+        }//if
+        int bucket = hash(cx, cy) & (buckets.length - 1);
+        int n = nodeCount++;
+        nodeCellX[n] = cx;
+        nodeCellY[n] = cy;
+        nodeEntity[n] = index;
+        next[n] = buckets[bucket];
+        buckets[bucket] = n;
+    }
+
+    /**
+     * Make the table bigger and put every node already stored back in the right bucket
+     * @param size The new number of buckets, a power of 2
+     */
+    private void rehash(int size) {
+        buckets = new int[size];
+        Arrays.fill(buckets, -1);
+        for(int n = 0; n < nodeCount; n++){
+            int bucket = hash(nodeCellX[n], nodeCellY[n]) & (size - 1);
+            next[n] = buckets[bucket];
+            buckets[bucket] = n;
+        }//for
+    }
+
+    /**
+     * Finds which cell a coordinate is in. Rounds down for negative numbers as well.
+     */
+    private int cell(int v) {
+        return v >= 0 ? v / cellSize : -((-v - 1) / cellSize) - 1;
+    }
+
+    /**
+     * Mixes the two cell coordinates into one number
+     */
+    private static int hash(int cx, int cy) {
+        return (cx * 73856093) ^ (cy * 19349663);
+    }
+}
@@ -0,0 +1,382 @@
+package alec.is.awesome.spaceinvaders.core;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Decides when and where aliens appear and how often they fire, following a list of waves read from a text file.
+ * Everything is timed in simulated time, so a game is equally hard however fast the device is.
+ * When a wave starts every alien it will spawn is worked out in advance (when, where and how fast),
+ * and those spawns are then released as their time comes, as long as the wave's cap allows.
+ * A spawn the cap holds back is given a new random time, so it does not appear the moment an alien is shot.
+ * The last wave repeats until the game is won or lost.
+ *
+ * The file has one setting per line, and # starts a comment:
+ * <pre>
+ * win 51                  # shoot this many aliens to win
+ * wave duration=60 rate=1.5 cap=kills+1 formation=random vx=0.25 vy=0,0.5 fire=0
+ * </pre>
+ * A wave line takes these settings, any that are left out keep the value shown above:
+ * <ul>
+ *     <li>duration: How long the wave lasts in simulated seconds</li>
+ *     <li>rate: How many aliens spawn per simulated second</li>
+ *     <li>cap: The most aliens alive at once, either a number or kills+number to grow as the player scores.
+ *     A spawn that would go over the cap waits until there is room.</li>
+ *     <li>formation: Where along the top of the screen aliens appear. random anywhere, line in steps from
+ *     left to right, centre alternating outwards from the middle.</li>
+ *     <li>vx: Aliens move sideways at a random speed up to this fast in either direction (pixels per millisecond)</li>
+ *     <li>vy: The slowest and fastest downward speed, separated by a comma</li>
+ *     <li>fire: How many shots each alien fires per simulated second on average. The wave fires as a whole:
+ *     it builds up shots in proportion to how many aliens are alive and fires each one from an alien chosen at random,
+ *     so the cost depends on the number of shots and not the number of aliens.</li>
+ * </ul>
+ * Only the game thread should use a director.
+ */
+public class SpawnDirector {
+    /**
+     * The waves used when none are given. The same as the game has always played:
+     * on average 1.5 aliens a second, but never more alive than one more than the number shot.
+     */
+    public static final String DEFAULT_WAVES = "win 51\nwave duration=60 rate=1.5 cap=kills+1 formation=random vx=0.25 vy=0,0.5\n";
+
+    //Formations
+    private static final int RANDOM = 0;
+    private static final int LINE = 1;
+    private static final int CENTRE = 2;
+
+    /**
+     * The settings for one wave
+     */
+    private static class Wave {
+        long durationNanos = 60000000000L;
+        //The original loop rolled a 1 in 600 chance every pass, and a pass (a 1 ms sleep and the update)
+        //took a little over a millisecond, so about 1.5 aliens a second when there was room under the cap
+        double rate = 1.5;
+        int cap = 1;
+        boolean capGrowsWithKills = true;
+        int formation = RANDOM;
+        double vx = 0.25;
+        double vyMin = 0;
+        double vyMax = 0.5;
+        double fireRate = 0;
+    }
+
+    private final String source;
+    private final Wave[] waves;
+    private final int killsToWin;
+
+    private int waveIndex = 0;
+    private long waveTime = 0; //Simulated time since the current wave started
+    private double fireBudget = 0; //Shots the aliens are owed, one is fired each time it passes 1
+
+    //Every spawn of the current wave, worked out when the wave started
+    private long[] spawnTimes = new long[16];
+    private double[] spawnX = new double[16]; //Where across the top of the screen, from 0 (left) to 1 (right)
+    private double[] spawnVx = new double[16];
+    private double[] spawnVy = new double[16];
+    private int spawnCount = 0;
+    private int nextSpawn = 0;
+
+    /**
+     * Read waves from text
+     * @param text The contents of a waves file
+     * @return A director following those waves
+     * @throws IllegalArgumentException If the text is not a valid waves file
+     */
+    public static SpawnDirector parse(String text) {
+        try {
+            return read(new StringReader(text));
+        } catch (IOException e) {
+            //A StringReader never fails
+            throw new IllegalStateException(e);
+        }//catch
+    }
+
+    /**
+     * Read a waves file
+     * @param in The file to read. It is read to the end but not closed.
+     * @return A director following the waves in the file
+     * @throws IOException If the file cannot be read
+     * @throws IllegalArgumentException If the file is not a valid waves file
+     */
+    public static SpawnDirector read(Reader in) throws IOException {
+        BufferedReader reader = new BufferedReader(in);
+        StringBuilder source = new StringBuilder();
+        List<Wave> waves = new ArrayList<>();
+        int killsToWin = 51;
+        String line;
+        int lineNumber = 0;
+        while((line = reader.readLine()) != null){
+            lineNumber++;
+            source.append(line).append('\n');
+            int comment = line.indexOf('#');
+            String[] words = (comment >= 0 ? line.substring(0, comment) : line).trim().split("\\s+");
+            try {
+                if(words[0].isEmpty()){
+                    continue;
+                } else if(words[0].equals("win") && words.length == 2){
+                    killsToWin = Integer.parseInt(words[1]);
+                } else if(words[0].equals("wave")){
+                    waves.add(parseWave(words));
+                } else {
+                    throw new IllegalArgumentException("expected win or wave");
+                }//if
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Waves line " + lineNumber + ": " + e.getMessage(), e);
+            }//catch
+        }//while
+        if(waves.isEmpty()){
+            throw new IllegalArgumentException("Waves file has no waves");
+        }//if
+        return new SpawnDirector(source.toString(), waves.toArray(new Wave[waves.size()]), killsToWin);
+    }
+
+    /**
+     * Read the settings of one wave line
+     */
+    private static Wave parseWave(String[] words) {
+        Wave wave = new Wave();
+        for(int i = 1; i < words.length; i++){
+            int equals = words[i].indexOf('=');
+            if(equals < 0){
+                throw new IllegalArgumentException("expected name=value but found " + words[i]);
+            }//if
+            String name = words[i].substring(0, equals);
+            String value = words[i].substring(equals + 1);
+            if(name.equals("duration")){
+                wave.durationNanos = (long) (Double.parseDouble(value) * 1000000000L);
+            } else if(name.equals("rate")){
+                wave.rate = Double.parseDouble(value);
+            } else if(name.equals("cap")){
+                wave.capGrowsWithKills = value.startsWith("kills+");
+                wave.cap = Integer.parseInt(wave.capGrowsWithKills ? value.substring(6) : value);
+            } else if(name.equals("formation")){
+                wave.formation = formation(value);
+            } else if(name.equals("vx")){
+                wave.vx = Double.parseDouble(value);
+            } else if(name.equals("vy")){
+                String[] range = value.split(",");
+                wave.vyMin = Double.parseDouble(range[0]);
+                wave.vyMax = Double.parseDouble(range[range.length - 1]);
+            } else if(name.equals("fire")){
+                wave.fireRate = Double.parseDouble(value);
+            } else {
+                throw new IllegalArgumentException("unknown setting " + name);
+            }//if
+        }//for
+        if(wave.durationNanos <= 0 || wave.rate < 0 || wave.fireRate < 0){
+            throw new IllegalArgumentException("duration must be positive and rate and fire must not be negative");
+        }//if
+        return wave;
+    }
+
+    private static int formation(String name) {
+        if(name.equals("random")){
+            return RANDOM;
+        } else if(name.equals("line")){
+            return LINE;
+        } else if(name.equals("centre")){
+            return CENTRE;
+        }//if
+        throw new IllegalArgumentException("unknown formation " + name);
+    }
+
+    private SpawnDirector(String source, Wave[] waves, int killsToWin) {
+        this.source = source;
+        this.waves = waves;
+        this.killsToWin = killsToWin;
+    }
+
+    /**
+     * Start again from the first wave. Called by World.reset after the World's random numbers are seeded.
+     * @param world The World being reset
+     */
+    public void reset(World world) {
+        waveIndex = 0;
+        fireBudget = 0;
+        startWave(world);
+    }
+
+    /**
+     * Release every spawn whose time has come and fire the aliens' shots. Called by the World at the end of every tick.
+     * @param world The World to spawn aliens in
+     * @param dtNanos The length of the tick
+     */
+    public void update(World world, long dtNanos) {
+        waveTime += dtNanos;
+        Wave wave = waves[waveIndex];
+        int cap = wave.capGrowsWithKills ? world.getNumAliensShot() + wave.cap : wave.cap;
+        while(nextSpawn < spawnCount && spawnTimes[nextSpawn] <= waveTime){
+            int i = nextSpawn;
+            //A spawn that was due before this tick was held back by the cap, or queued behind one that was
+            if(world.getEnemyCount() >= cap || spawnTimes[i] <= waveTime - dtNanos){
+                //Try again after a new gap rather than as soon as there is room. The original game rolled for
+                //a spawn every pass, so once room opened up it still waited 1 / rate seconds on average.
+                //The gap is exponential, so however long the spawn has been waiting the wait from when room
+                //opens up is the same.
+                spawnTimes[i] = waveTime + (long) (-Math.log(1 - world.getRandom().nextDouble()) / wave.rate * 1000000000L);
+                break;
+            }//if
+            nextSpawn++;
+            world.spawnAlien(spawnX[i], spawnVx[i], spawnVy[i]);
+        }//while
+
+        int aliens = world.getEnemyCount();
+        if(aliens == 0){
+            fireBudget = 0;
+        } else {
+            fireBudget += aliens * wave.fireRate * dtNanos / 1000000000.0;
+            GameRandom random = world.getRandom();
+            while(fireBudget >= 1){
+                fireBudget -= 1;
+                world.fireEnemyShot(random.nextInt(aliens));
+            }//while
+        }//if
+
+        if(waveTime >= wave.durationNanos){
+            //Spawns that were held back by the cap are dropped with the old wave
+            if(waveIndex < waves.length - 1){
+                waveIndex++;
+            }//if
+            startWave(world);
+        }//if
+    }
+
+    /**
+     * Work out every spawn in the current wave
+     */
+    private void startWave(World world) {
+        Wave wave = waves[waveIndex];
+        GameRandom random = world.getRandom();
+        waveTime = 0;
+        nextSpawn = 0;
+        spawnCount = (int) Math.round(wave.rate * wave.durationNanos / 1000000000.0);
+        if(spawnTimes.length < spawnCount){
+            int size = Integer.highestOneBit(spawnCount) << 1;
+            spawnTimes = Arrays.copyOf(spawnTimes, size);
+            spawnX = Arrays.copyOf(spawnX, size);
+            spawnVx = Arrays.copyOf(spawnVx, size);
+            spawnVy = Arrays.copyOf(spawnVy, size);
+        }//if
+        for(int i = 0; i < spawnCount; i++){
+            //Randomly placed within each slot of the wave so the spawns do not come in a steady beat
+            spawnTimes[i] = (long) ((i + random.nextDouble()) * wave.durationNanos / spawnCount);
+            spawnX[i] = formationX(wave.formation, i, random);
+            spawnVx[i] = (random.nextDouble() * 2 - 1) * wave.vx;
+            spawnVy[i] = wave.vyMin + random.nextDouble() * (wave.vyMax - wave.vyMin);
+        }//for
+    }
+
+    /**
+     * Where the i'th alien of a wave appears, from 0 (left) to 1 (right)
+     */
+    private static double formationX(int formation, int i, GameRandom random) {
+        if(formation == LINE){
+            //Eleven columns, swept left to right over and over
+            return (i % 11) / 10.0;
+        } else if(formation == CENTRE){
+            //The middle, then one step right, one step left, two steps right and so on out to the edges
+            int step = (i % 11 + 1) / 2;
+            return 0.5 + (i % 2 == 1 ? step : -step) / 10.0;
+        }//if
+        return random.nextDouble();
+    }
+
+    /**
+     * @return How many bytes writeState writes
+     */
+    public int getStateSize() {
+        return 32 + 32 * (spawnCount - nextSpawn);
+    }
+
+    /**
+     * Save how far through the waves the game is, for World.writeState
+     * @param out Where to write, with at least getStateSize bytes left
+     */
+    public void writeState(ByteBuffer out) {
+        out.putInt(source.hashCode());
+        out.putInt(getStateSize() - 8); //The length of the rest, so different waves can skip it
+        out.putInt(waveIndex);
+        out.putLong(waveTime);
+        out.putDouble(fireBudget);
+        out.putInt(spawnCount - nextSpawn);
+        for(int i = nextSpawn; i < spawnCount; i++){
+            out.putLong(spawnTimes[i]);
+            out.putDouble(spawnX[i]);
+            out.putDouble(spawnVx[i]);
+            out.putDouble(spawnVy[i]);
+        }//for
+    }
+
+    /**
+     * Carry on from a state saved by writeState. If it was saved with different waves
+     * it is skipped and the waves start again from the first.
+     * @param in Where to read from
+     * @param world The World being restored, which has just been reset
+     * @throws IllegalArgumentException If in does not hold a complete state, or one in a wave these waves do not have
+     */
+    public void readState(ByteBuffer in, World world) {
+        int hash = in.getInt();
+        int length = in.getInt();
+        if(length < 24 || length > in.remaining()){
+            throw new IllegalArgumentException("Saved waves are incomplete");
+        }//if
+        if(hash != source.hashCode()){
+            in.position(in.position() + length);
+            return;
+        }//if
+        int index = in.getInt();
+        if(index < 0 || index >= waves.length){
+            throw new IllegalArgumentException("Saved waves are damaged");
+        }//if
+        waveIndex = index;
+        waveTime = in.getLong();
+        fireBudget = in.getDouble();
+        int count = in.getInt();
+        if(count < 0 || count > in.remaining() / 32){
+            throw new IllegalArgumentException("Saved waves are incomplete");
+        }//if
+        spawnCount = count;
+        nextSpawn = 0;
+        if(spawnTimes.length < spawnCount){
+            int size = Integer.highestOneBit(spawnCount) << 1;
+            spawnTimes = new long[size];
+            spawnX = new double[size];
+            spawnVx = new double[size];
+            spawnVy = new double[size];
+        }//if
+        for(int i = 0; i < spawnCount; i++){
+            spawnTimes[i] = in.getLong();
+            spawnX[i] = in.getDouble();
+            spawnVx[i] = in.getDouble();
+            spawnVy[i] = in.getDouble();
+        }//for
+    }
+
+    /**
+     * @return How many aliens must be shot to win
+     */
+    public int getKillsToWin() {
+        return killsToWin;
+    }
+
+    /**
+     * @return The text the waves were read from, so that the same director can be made again for a replay
+     */
+    public String getSource() {
+        return source;
+    }
+
+    /**
+     * @return A new director with the same waves, starting from the first
+     */
+    public SpawnDirector copy() {
+        return new SpawnDirector(source, waves, killsToWin);
+    }
+}
@@ -0,0 +1,12 @@
+package alec.is.awesome.spaceinvaders.core;
+
+/**
+ * The images that Entities can be drawn with.
+ * The Android side of the game maps each of these to a drawable resource.
+ */
+public enum Sprite {
+    PLAYER_SHIP,
+    ENEMY_SHIP,
+    PLAYER_LASER,
+    ENEMY_LASER
+}
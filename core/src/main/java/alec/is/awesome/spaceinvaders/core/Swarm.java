@@ -0,0 +1,301 @@
+package alec.is.awesome.spaceinvaders.core;
+
+import java.util.Arrays;
+
+/**
+ * Every Entity of one kind (all the aliens, or all the shots) stored as plain arrays instead of objects.
+ * Element i of each array belongs to the same Entity, and every Entity of a kind is the same size.
+ * Moving them all is then one tight loop over a few arrays that sit next to each other in memory,
+ * with no virtual calls or pointers to follow, which is what makes tens of thousands of aliens practical.
+ * The arrays only grow, so nothing is allocated once they are big enough.
+ * Used by the World when it is created in data oriented mode.
+ */
+public class Swarm {
+    private final Sprite sprite;
+    private int width; //Every Entity in the swarm is this wide
+    private int height; //and this high
+
+    private double[] x;
+    private double[] y;
+    private double[] vx; //Pixels per millisecond
+    private double[] vy;
+    private boolean[] alive; //false once the Entity has been hit or has left the screen
+    private int count = 0;
+
+    /**
+     * @param sprite The image every Entity in the swarm is drawn with
+     * @param capacity How many Entities to make room for to begin with
+     */
+    public Swarm(Sprite sprite, int capacity) {
+        this.sprite = sprite;
+        capacity = Math.max(1, capacity);
+        x = new double[capacity];
+        y = new double[capacity];
+        vx = new double[capacity];
+        vy = new double[capacity];
+        alive = new boolean[capacity];
+    }
+
+    /**
+     * Change the size of every Entity in the swarm, for example when the screen rotates
+     * @param width The width in pixels
+     * @param height The height in pixels
+     */
+    public void setSize(int width, int height) {
+        this.width = width;
+        this.height = height;
+    }
+
+    /**
+     * Move every Entity in proportion, for example when the screen rotates, so each keeps its place on the screen
+     * @param scaleX What to multiply the horizontal positions by
+     * @param scaleY What to multiply the vertical positions by
+     */
+    public void scale(double scaleX, double scaleY) {
+        for(int i = 0; i < count; i++){
+            x[i] *= scaleX;
+            y[i] *= scaleY;
+        }//for
+    }
+
+    /**
+     * Add an Entity to the end of the swarm
+     * @param x The left edge
+     * @param y The top edge
+     * @param vx The horizontal velocity
+     * @param vy The vertical velocity
+     */
+    public void add(double x, double y, double vx, double vy) {
+        if(count == this.x.length){
+            int size = count * 2;
+            this.x = Arrays.copyOf(this.x, size);
+            this.y = Arrays.copyOf(this.y, size);
+            this.vx = Arrays.copyOf(this.vx, size);
+            this.vy = Arrays.copyOf(this.vy, size);
+            alive = Arrays.copyOf(alive, size);
+        }//if
+        this.x[count] = x;
+        this.y[count] = y;
+        this.vx[count] = vx;
+        this.vy[count] = vy;
+        alive[count] = true;
+        count++;
+    }
+
+    /**
+     * Move every Entity by its velocity
+     * @param dt The length of the tick in milliseconds
+     */
+    public void integrate(double dt) {
+        integrate(0, count, dt);
+    }
+
+    /**
+     * Move some of the Entities by their velocity. Different ranges can be moved on different threads at once.
+     * @param from The first Entity to move
+     * @param to One past the last Entity to move
+     * @param dt The length of the tick in milliseconds
+     */
+    public void integrate(int from, int to, double dt) {
+        double[] x = this.x;
+        double[] y = this.y;
+        double[] vx = this.vx;
+        double[] vy = this.vy;
+        for(int i = from; i < to; i++){
+            x[i] += vx[i] * dt;
+            y[i] += vy[i] * dt;
+        }//for
+    }
+
+    /**
+     * Put every Entity that has gone off the side of the screen back on it and reverse its
+     * horizontal direction, the same as AlienShip.checkHitBox
+     * @param screenWidth The width of the playing area
+     */
+    public void bounceOffWalls(int screenWidth) {
+        bounceOffWalls(0, count, screenWidth);
+    }
+
+    /**
+     * bounceOffWalls for some of the Entities. Different ranges can be checked on different threads at once.
+     * @param from The first Entity to check
+     * @param to One past the last Entity to check
+     * @param screenWidth The width of the playing area
+     */
+    public void bounceOffWalls(int from, int to, int screenWidth) {
+        for(int i = from; i < to; i++){
+            if((int) (x[i] + width) > screenWidth){
+                vx[i] = -vx[i];
+                x[i] = screenWidth - width;
+            } else if((int) x[i] < 0){
+                vx[i] = -vx[i];
+                x[i] = 0;
+            }//if
+        }//for
+    }
+
+    /**
+     * Kill every Entity that is completely outside a rectangle, the same as Shot.checkHitBox
+     * @param bounds The rectangle to stay inside, usually the playing area
+     */
+    public void killOutside(HitBox bounds) {
+        killOutside(0, count, bounds);
+    }
+
+    /**
+     * killOutside for some of the Entities. Different ranges can be checked on different threads at once.
+     * @param from The first Entity to check
+     * @param to One past the last Entity to check
+     * @param bounds The rectangle to stay inside
+     */
+    public void killOutside(int from, int to, HitBox bounds) {
+        for(int i = from; i < to; i++){
+            if(!intersects(i, bounds.left, bounds.top, bounds.right, bounds.bottom)){
+                alive[i] = false;
+            }//if
+        }//for
+    }
+
+    /**
+     * Check if any Entity in a range reaches below a line
+     * @param from The first Entity to check
+     * @param to One past the last Entity to check
+     * @param y The line
+     * @return true if the bottom of any of them is below the line
+     */
+    public boolean anyBelow(int from, int to, int y) {
+        for(int i = from; i < to; i++){
+            if(getBottom(i) > y){
+                return true;
+            }//if
+        }//for
+        return false;
+    }
+
+    /**
+     * Check if any living Entity in a range overlaps a rectangle, and kill the ones that do
+     * @param from The first Entity to check
+     * @param to One past the last Entity to check
+     * @return true if any of them overlapped it
+     */
+    public boolean killIntersecting(int from, int to, int left, int top, int right, int bottom) {
+        boolean any = false;
+        for(int i = from; i < to; i++){
+            //Most are nowhere near, so the cheap test comes first
+            if(getBottom(i) > top && alive[i] && intersects(i, left, top, right, bottom)){
+                alive[i] = false;
+                any = true;
+            }//if
+        }//for
+        return any;
+    }
+
+    /**
+     * Check if an Entity's hitbox overlaps a rectangle
+     * @param i The index of the Entity
+     * @return true if they overlap
+     */
+    public boolean intersects(int i, int left, int top, int right, int bottom) {
+        return getLeft(i) < right && left < getRight(i) && getTop(i) < bottom && top < getBottom(i);
+    }
+
+    /**
+     * Remove every Entity that has been killed. The last Entity is moved into each gap, so the
+     * order changes but the same swarm always ends up in the same order.
+     * @return How many were removed
+     */
+    public int removeDead() {
+        int before = count;
+        for(int i = count - 1; i >= 0; i--){
+            if(!alive[i]){
+                count--;
+                x[i] = x[count];
+                y[i] = y[count];
+                vx[i] = vx[count];
+                vy[i] = vy[count];
+                alive[i] = alive[count];
+            }//if
+        }//for
+        return before - count;
+    }
+
+    /**
+     * Remove every Entity
+     */
+    public void clear() {
+        count = 0;
+    }
+
+    /**
+     * Copy every Entity that is still alive into a snapshot for drawing
+     * @param frame The snapshot to add to
+     */
+    public void writeTo(FrameSnapshot frame) {
+        for(int i = 0; i < count; i++){
+            if(alive[i]){
+                frame.add((float) x[i], (float) y[i], width, height, sprite);
+            }//if
+        }//for
+    }
+
+    /**
+     * Kill an Entity. It stays in the swarm until the next removeDead.
+     * @param i The index of the Entity
+     */
+    public void kill(int i) {
+        alive[i] = false;
+    }
+
+    public boolean isAlive(int i) {
+        return alive[i];
+    }
+
+    /**
+     * @return The number of Entities, including any killed since the last removeDead
+     */
+    public int size() {
+        return count;
+    }
+
+    public double getX(int i) {
+        return x[i];
+    }
+
+    public double getY(int i) {
+        return y[i];
+    }
+
+    public double getVx(int i) {
+        return vx[i];
+    }
+
+    public double getVy(int i) {
+        return vy[i];
+    }
+
+    //The hitbox of each Entity, rounded the same way as Entity.updateHitBox
+
+    public int getLeft(int i) {
+        return (int) x[i];
+    }
+
+    public int getTop(int i) {
+        return (int) y[i];
+    }
+
+    public int getRight(int i) {
+        return (int) (x[i] + width);
+    }
+
+    public int getBottom(int i) {
+        return (int) (y[i] + height);
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+}
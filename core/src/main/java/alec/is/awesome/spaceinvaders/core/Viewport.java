@@ -0,0 +1,33 @@
+package alec.is.awesome.spaceinvaders.core;
+
+/**
+ * The size of the playing area at one moment. A Viewport never changes, when the screen
+ * is resized a new one is made, so it can be shared between threads without locking.
+ */
+public class Viewport {
+    private final int width;
+    private final int height;
+
+    /**
+     * @param width The width of the playing area in pixels
+     * @param height The height of the playing area in pixels
+     */
+    public Viewport(int width, int height) {
+        this.width = width;
+        this.height = height;
+    }
+
+    /**
+     * @return The width of the playing area in pixels
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * @return The height of the playing area in pixels
+     */
+    public int getHeight() {
+        return height;
+    }
+}
@@ -0,0 +1,39 @@
+package alec.is.awesome.spaceinvaders.core;
+
+/**
+ * Keeps track of the current size of the playing area. The View updates it when its size
+ * changes (including on rotation) and the game thread reads it once per tick. Reading is
+ * a single volatile read, and a new Viewport is only made when the size actually changes,
+ * so the game thread can tell that nothing changed by comparing references.
+ */
+public class ViewportService {
+    private volatile Viewport current;
+
+    /**
+     * @param width The best guess at the width of the playing area until the View is measured
+     * @param height The best guess at the height of the playing area until the View is measured
+     */
+    public ViewportService(int width, int height) {
+        current = new Viewport(width, height);
+    }
+
+    /**
+     * @return The current size of the playing area
+     */
+    public Viewport get() {
+        return current;
+    }
+
+    /**
+     * Called when the size of the playing area changes. Sizes that are not positive
+     * (a View that has not been laid out yet) are ignored.
+     * @param width The new width in pixels
+     * @param height The new height in pixels
+     */
+    public void update(int width, int height) {
+        Viewport old = current;
+        if(width > 0 && height > 0 && (old.getWidth() != width || old.getHeight() != height)){
+            current = new Viewport(width, height);
+        }//if
+    }
+}
@@ -0,0 +1,892 @@
+package alec.is.awesome.spaceinvaders.core;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The state of one game of space invaders and the rules that advance it.
+ * This does not depend on Android so a game can be simulated, tested and
+ * measured on a plain JVM. The GameLoop decides when to call step and the
+ * CanvasView decides how to draw the result.
+ */
+public class World {
+    //Outcomes of the current game
+    public static final int IN_PROGRESS = 0;
+    public static final int LOST = 1;
+    public static final int WON = 2;
+
+    /**
+     * How fast the player's ship moves when steered, in pixels per millisecond
+     */
+    public static final double PLAYER_SPEED = 0.7;
+
+    //Saved states from writeState start with these
+    private static final int STATE_MAGIC = 0x53495357; //"SISW"
+    private static final int STATE_VERSION = 1;
+    private static final int STATE_HEADER_SIZE = 93;
+
+    private EntityList enemyEntities; //The list of enemy ships
+    private EntityList lasers; //The list of the players shot
+    private EntityList enemyLasers; //The list of the shots fired by the aliens
+    private ShipEntity player; // The player's ship
+    private double steerX = Double.NaN; //Where the player's ship is heading, NaN when it is not being steered
+
+    private int width; //The width of the playing area in pixels
+    private int height; //The height of the playing area in pixels
+    private final HitBox bounds = new HitBox(0, 0, 0, 0); //The whole playing area, only changed on resize
+
+    private volatile int numShot = 0; //The number of enemies shot this game
+    private volatile int outcome = IN_PROGRESS; //Whether the game has been won or lost
+    private long elapsedNanos = 0; //The amount of simulated time this game
+    private final GameRandom random = new GameRandom(0); //Makes every random choice in the game
+    private long seed = 0; //The seed random was given at the start of this game
+    private SpawnDirector director = SpawnDirector.parse(SpawnDirector.DEFAULT_WAVES); //Decides when aliens appear and when the game is won
+
+    private EntityPool<AlienShip> alienPool; //Aliens that have been shot, waiting to be spawned again
+    private EntityPool<Shot> shotPool; //Shots that have hit or left the screen, waiting to be fired again
+    private EntityPool<EnemyShot> enemyShotPool; //The same for the aliens' shots
+
+    //Data oriented mode keeps the aliens and shots in arrays instead of the lists and pools above
+    private final boolean dataOriented;
+    private Swarm alienSwarm;
+    private Swarm shotSwarm;
+    private Swarm enemyShotSwarm;
+
+    private SpatialHash aliens; //Grid of the aliens used to find which ones a shot might hit
+
+    //Splits the work of stepping the Swarms between threads. By default everything runs on the calling thread.
+    private ParallelRunner runner;
+    private IntList[] chunkHits = new IntList[ParallelRunner.MAX_CHUNKS]; //Pairs of shot and alien indices that overlap, per chunk
+    private IntList[] chunkCandidates = new IntList[ParallelRunner.MAX_CHUNKS]; //Grid lookups, per chunk
+    private double stepDt; //The length of the current tick, for the chunks
+    private volatile boolean alienReachedBottom; //Set by any chunk that finds an alien at the bottom
+    private volatile boolean playerShot; //Set by any chunk that finds an enemy shot hitting the player
+
+    private final ParallelRunner.Task moveShots = new ParallelRunner.Task() {
+        @Override
+        public void run(int chunk, int from, int to) {
+            shotSwarm.integrate(from, to, stepDt);
+            shotSwarm.killOutside(from, to, bounds);
+        }
+    };
+
+    //Enemy shots only need checking against the player, so that is done while they are moved
+    private final ParallelRunner.Task moveEnemyShots = new ParallelRunner.Task() {
+        @Override
+        public void run(int chunk, int from, int to) {
+            enemyShotSwarm.integrate(from, to, stepDt);
+            enemyShotSwarm.killOutside(from, to, bounds);
+            HitBox p = player.getHitBox();
+            if (enemyShotSwarm.killIntersecting(from, to, p.left, p.top, p.right, p.bottom)) {
+                playerShot = true;
+            }//if
+        }
+    };
+
+    private final ParallelRunner.Task moveAliens = new ParallelRunner.Task() {
+        @Override
+        public void run(int chunk, int from, int to) {
+            alienSwarm.integrate(from, to, stepDt);
+            alienSwarm.bounceOffWalls(from, to, width);
+            if (alienSwarm.anyBelow(from, to, height)) {
+                alienReachedBottom = true;
+            }//if
+        }
+    };
+
+    private final ParallelRunner.Task findHits = new ParallelRunner.Task() {
+        @Override
+        public void run(int chunk, int from, int to) {
+            IntList hits = chunkHits[chunk];
+            IntList candidates = chunkCandidates[chunk];
+            hits.clear();
+            for (int i = from; i < to; i++) {
+                if (!shotSwarm.isAlive(i)) {
+                    continue;
+                }//if
+                int left = shotSwarm.getLeft(i);
+                int top = shotSwarm.getTop(i);
+                int right = shotSwarm.getRight(i);
+                int bottom = shotSwarm.getBottom(i);
+                candidates.clear();
+                aliens.query(left, top, right, bottom, candidates);
+                for (int j = 0; j < candidates.size(); j++) {
+                    int a = candidates.get(j);
+                    if (alienSwarm.intersects(a, left, top, right, bottom)) {
+                        hits.add(i);
+                        hits.add(a);
+                    }//if
+                }//for
+            }//for
+        }
+    };
+    private List<Entity> candidates = new ArrayList<>(); //The aliens found by the last grid lookup
+
+    /**
+     * Create a new world with the given playing area that stores each Entity as an object
+     * @param width The width of the playing area in pixels
+     * @param height The height of the playing area in pixels
+     */
+    public World(int width, int height) {
+        this(width, height, false);
+    }
+
+    /**
+     * Create a new world with the given playing area
+     * @param width The width of the playing area in pixels
+     * @param height The height of the playing area in pixels
+     * @param dataOriented true to store the aliens and shots in Swarms of plain arrays instead of as
+     *                     Entity objects. This is faster with very many aliens, but getEnemies and getShots
+     *                     are then always empty and the aliens and shots are only seen through getAliens,
+     *                     getShotSwarm and writeSnapshot.
+     */
+    public World(int width, int height, boolean dataOriented) {
+        this.dataOriented = dataOriented;
+        alienSwarm = new Swarm(Sprite.ENEMY_SHIP, dataOriented ? 1024 : 1);
+        shotSwarm = new Swarm(Sprite.PLAYER_LASER, dataOriented ? 64 : 1);
+        enemyShotSwarm = new Swarm(Sprite.ENEMY_LASER, dataOriented ? 256 : 1);
+
+        //Only the game thread touches these lists, other threads read a FrameSnapshot instead
+        enemyEntities = new EntityList(64);
+        lasers = new EntityList(16);
+        enemyLasers = new EntityList(64);
+        aliens = new SpatialHash(1);
+        setParallelRunner(null);
+        setBounds(width, height);
+        player = new ShipEntity(this);
+
+        //Anonymous classes tell the pools how to make a new Entity when they run out
+        alienPool = new EntityPool<AlienShip>(64) {
+            @Override
+            protected AlienShip create() {
+                return new AlienShip(World.this);
+            }
+        };
+        shotPool = new EntityPool<Shot>(16) {
+            @Override
+            protected Shot create() {
+                return new Shot(World.this, 0, 0);
+            }
+        };
+        enemyShotPool = new EntityPool<EnemyShot>(64) {
+            @Override
+            protected EnemyShot create() {
+                return new EnemyShot(World.this);
+            }
+        };
+    }
+
+    /**
+     * Resets all game variables and clears lists, with a new random seed.
+     */
+    public void reset() {
+        reset(System.nanoTime());
+    }
+
+    /**
+     * Resets all game variables and clears lists.
+     * Two games reset with the same seed and given the same input on the same ticks play out exactly the same.
+     * @param seed The seed for every random choice made during the game
+     */
+    public void reset(long seed) {
+        this.seed = seed;
+        random.setSeed(seed);
+        for (int i = 0; i < enemyEntities.size(); i++) {
+            recycle(enemyEntities.get(i));
+        }//for
+        for (int i = 0; i < lasers.size(); i++) {
+            recycle(lasers.get(i));
+        }//for
+        for (int i = 0; i < enemyLasers.size(); i++) {
+            recycle(enemyLasers.get(i));
+        }//for
+        enemyEntities.clear();
+        lasers.clear();
+        enemyLasers.clear();
+        alienSwarm.clear();
+        shotSwarm.clear();
+        enemyShotSwarm.clear();
+        player = new ShipEntity(this);
+        steerX = Double.NaN;
+        numShot = 0;
+        outcome = IN_PROGRESS;
+        elapsedNanos = 0;
+        director.reset(this);
+    }
+
+    /**
+     * Change the waves of aliens. Takes effect from the next reset.
+     * @param director The director deciding when aliens appear and how many must be shot to win
+     */
+    public void setSpawnDirector(SpawnDirector director) {
+        this.director = director;
+    }
+
+    public SpawnDirector getSpawnDirector() {
+        return director;
+    }
+
+    /**
+     * Advance the game by one tick.
+     * The time is read once by the caller and shared by every Entity so they all move together.
+     * @param dtNanos The time in nanoseconds since the last tick
+     */
+    public void step(long dtNanos) {
+        elapsedNanos += dtNanos;
+        double dt = dtNanos / 1000000.0;
+
+        steer(dt);
+        player.update(dt);
+
+        if (dataOriented) {
+            stepSwarms(dt);
+        } else {
+            stepEntities(dt);
+        }//if
+
+        if(player.isDestroyed()){
+            outcome = LOST;
+        }//if
+
+        if(outcome == IN_PROGRESS && numShot >= director.getKillsToWin()){
+            outcome = WON;
+        }//if
+
+        director.update(this, dtNanos);
+    }
+
+    /**
+     * The part of a tick that moves the aliens and shots and finds collisions, for Entity objects
+     * @param dt The length of the tick in milliseconds
+     */
+    private void stepEntities(double dt) {
+        //Move everything exactly once before looking for collisions
+        for (int i = 0; i < lasers.size(); i++) {
+            lasers.get(i).update(dt);
+        }//for
+        for (int i = 0; i < enemyEntities.size(); i++) {
+            enemyEntities.get(i).update(dt);
+        }//for
+        for (int i = 0; i < enemyLasers.size(); i++) {
+            enemyLasers.get(i).update(dt);
+        }//for
+
+        //Put the aliens in the grid so each shot only checks the aliens near it
+        aliens.clear();
+        for (int i = 0; i < enemyEntities.size(); i++) {
+            aliens.insert(enemyEntities.get(i));
+        }//for
+
+        //Check to see if the shots collide with any nearby aliens
+        for (int i = 0; i < lasers.size(); i++) {
+            Entity l = lasers.get(i);
+            candidates.clear();
+            aliens.query(l.getHitBox(), candidates);
+            for (int j = 0; j < candidates.size() && l.isValid(); j++) {
+                Entity e = candidates.get(j);
+                if (e.isValid() && l.collidedWith(e)) {
+                    l.collideAction(e);
+                    e.collideAction(l);
+                    numShot++;
+                }//if
+            }//for
+        }//for
+        removeInvalid(lasers);
+
+        //Check to see if any nearby alien has hit the player
+        candidates.clear();
+        aliens.query(player.getHitBox(), candidates);
+        for (int i = 0; i < candidates.size(); i++) {
+            if (candidates.get(i).collidedWith(player)) {
+                player.collideAction(candidates.get(i));
+            }//if
+        }//for
+        candidates.clear();
+
+        //Enemy shots only ever hit the player, so there is nothing to look up
+        for (int i = 0; i < enemyLasers.size(); i++) {
+            Entity s = enemyLasers.get(i);
+            if (s.isValid() && s.collidedWith(player)) {
+                s.collideAction(player);
+                player.collideAction(s);
+            }//if
+        }//for
+        removeInvalid(enemyLasers);
+
+        //If an alien has made it to the bottom of the screen they lose
+        for (int i = 0; i < enemyEntities.size(); i++) {
+            if (enemyEntities.get(i).getHitBox().bottom > height) {
+                outcome = LOST;
+            }//if
+        }//for
+        removeInvalid(enemyEntities);
+    }
+
+    /**
+     * The same as stepEntities for aliens and shots stored in Swarms. Moving and finding hits are split
+     * into chunks by the ParallelRunner, and the hits found by each chunk are then carried out in chunk
+     * order on this thread, so the result is exactly the same however many threads are used.
+     * @param dt The length of the tick in milliseconds
+     */
+    private void stepSwarms(double dt) {
+        //Move everything exactly once before looking for collisions
+        stepDt = dt;
+        alienReachedBottom = false;
+        playerShot = false;
+        runner.run(shotSwarm.size(), moveShots);
+        runner.run(enemyShotSwarm.size(), moveEnemyShots);
+        runner.run(alienSwarm.size(), moveAliens);
+
+        //Put the aliens in the grid so each shot only checks the aliens near it. The ids are the alien indices.
+        aliens.clear();
+        for (int i = 0; i < alienSwarm.size(); i++) {
+            aliens.insert(alienSwarm.getLeft(i), alienSwarm.getTop(i), alienSwarm.getRight(i), alienSwarm.getBottom(i));
+        }//for
+
+        //Find every shot and alien that overlap, then let each shot hit the first living alien it overlaps
+        int chunks = runner.chunksFor(shotSwarm.size());
+        runner.run(shotSwarm.size(), findHits);
+        for (int c = 0; c < chunks; c++) {
+            IntList hits = chunkHits[c];
+            for (int h = 0; h < hits.size(); h += 2) {
+                int shot = hits.get(h);
+                int alien = hits.get(h + 1);
+                if (shotSwarm.isAlive(shot) && alienSwarm.isAlive(alien)) {
+                    shotSwarm.kill(shot);
+                    alienSwarm.kill(alien);
+                    numShot++;
+                }//if
+            }//for
+        }//for
+        shotSwarm.removeDead();
+
+        //Check to see if any nearby alien has hit the player
+        HitBox p = player.getHitBox();
+        int found = aliens.query(p.left, p.top, p.right, p.bottom);
+        for (int j = 0; j < found; j++) {
+            if (alienSwarm.intersects(aliens.getFound(j), p.left, p.top, p.right, p.bottom)) {
+                player.hit();
+            }//if
+        }//for
+        if (playerShot) {
+            player.hit();
+        }//if
+        enemyShotSwarm.removeDead();
+
+        //If an alien has made it to the bottom of the screen they lose
+        if (alienReachedBottom) {
+            outcome = LOST;
+        }//if
+        alienSwarm.removeDead();
+    }
+
+    /**
+     * Use more than one thread to step a data oriented World with very many aliens.
+     * Has no effect on a World that stores Entity objects.
+     * @param runner The threads to use, or null to use only the thread calling step
+     */
+    public void setParallelRunner(ParallelRunner runner) {
+        this.runner = runner != null ? runner : new ParallelRunner(1, Integer.MAX_VALUE);
+        for (int c = 0; c < ParallelRunner.MAX_CHUNKS; c++) {
+            if (chunkHits[c] == null && c < this.runner.chunksFor(Integer.MAX_VALUE)) {
+                chunkHits[c] = new IntList(16);
+                chunkCandidates[c] = new IntList(16);
+            }//if
+        }//for
+    }
+
+    /**
+     * Copy everything needed to draw the current state of the game
+     * @param frame The snapshot to fill in
+     */
+    public void writeSnapshot(FrameSnapshot frame) {
+        frame.begin(numShot, outcome);
+        alienSwarm.writeTo(frame);
+        shotSwarm.writeTo(frame);
+        enemyShotSwarm.writeTo(frame);
+        for (int i = 0; i < enemyEntities.size(); i++) {
+            frame.add(enemyEntities.get(i));
+        }//for
+        for (int i = 0; i < lasers.size(); i++) {
+            frame.add(lasers.get(i));
+        }//for
+        for (int i = 0; i < enemyLasers.size(); i++) {
+            frame.add(enemyLasers.get(i));
+        }//for
+        frame.add(player);
+    }
+
+    /**
+     * @return How many bytes writeState needs for the game as it is now
+     */
+    public int getStateSize() {
+        return STATE_HEADER_SIZE + 32 * getEnemyCount() + 16 * (getShotCount() + getEnemyShotCount()) + director.getStateSize();
+    }
+
+    /**
+     * Save the whole game so that readState can carry it on later, even in another process.
+     * Only call this between steps. Nothing is allocated, so it is quick enough to run every few seconds.
+     *
+     * The state is every number needed to carry on the game, written in order with no names or types:
+     * a header (the size of the playing area, the seed and current state of the random numbers, the score,
+     * the outcome, the simulated time and the player), then the aliens (x, y, vx and vy each), the player's
+     * shots and the aliens' shots (x and y each), each list after its length, then the SpawnDirector's state.
+     * It is the same whether the World is data oriented or not, so a state can be read by either kind.
+     * The first number is written last, so a state that was only partly written is never read.
+     * @param out Where to write, starting at its position, with at least getStateSize bytes left
+     */
+    public void writeState(ByteBuffer out) {
+        int start = out.position();
+        out.putInt(0);
+        out.putInt(STATE_VERSION);
+        out.putInt(width);
+        out.putInt(height);
+        out.putLong(seed);
+        out.putLong(random.getState());
+        out.putInt(numShot);
+        out.putInt(outcome);
+        out.putLong(elapsedNanos);
+        out.putDouble(steerX);
+        out.putDouble(player.getX());
+        out.putDouble(player.getY());
+        out.putDouble(player.getVx());
+        out.put((byte) (player.isDestroyed() ? 1 : 0));
+        out.putInt(getEnemyCount());
+        out.putInt(getShotCount());
+        out.putInt(getEnemyShotCount());
+
+        for (int i = 0; i < alienSwarm.size(); i++) {
+            out.putDouble(alienSwarm.getX(i)).putDouble(alienSwarm.getY(i)).putDouble(alienSwarm.getVx(i)).putDouble(alienSwarm.getVy(i));
+        }//for
+        for (int i = 0; i < enemyEntities.size(); i++) {
+            Entity e = enemyEntities.get(i);
+            out.putDouble(e.getX()).putDouble(e.getY()).putDouble(e.getVx()).putDouble(e.getVy());
+        }//for
+        writePositions(out, shotSwarm, lasers);
+        writePositions(out, enemyShotSwarm, enemyLasers);
+        director.writeState(out);
+        out.putInt(start, STATE_MAGIC);
+    }
+
+    private static void writePositions(ByteBuffer out, Swarm swarm, EntityList list) {
+        for (int i = 0; i < swarm.size(); i++) {
+            out.putDouble(swarm.getX(i)).putDouble(swarm.getY(i));
+        }//for
+        for (int i = 0; i < list.size(); i++) {
+            out.putDouble(list.get(i).getX()).putDouble(list.get(i).getY());
+        }//for
+    }
+
+    /**
+     * Carry on a game saved by writeState. If the playing area is a different size now (for example
+     * the screen has rotated) everything is moved in proportion so it keeps its place on the screen.
+     * The World should have the same waves as the one that was saved, if not the waves start again.
+     * @param in Where to read from, starting at its position
+     * @param width The width of the playing area now
+     * @param height The height of the playing area now
+     * @throws IllegalArgumentException If in does not hold a complete saved state, or it is damaged (such as
+     * an outcome that is not IN_PROGRESS, LOST or WON). The World may have been partly restored and should be reset.
+     */
+    public void readState(ByteBuffer in, int width, int height) {
+        try {
+            readStateBody(in, width, height);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+            //Anything the checks below miss, such as a damaged SpawnDirector state
+            throw new IllegalArgumentException("Saved World is incomplete", e);
+        }//catch
+    }
+
+    private void readStateBody(ByteBuffer in, int width, int height) {
+        if (in.remaining() < STATE_HEADER_SIZE || in.getInt() != STATE_MAGIC || in.getInt() != STATE_VERSION) {
+            throw new IllegalArgumentException("Not a saved World");
+        }//if
+        int savedWidth = in.getInt();
+        int savedHeight = in.getInt();
+        if (savedWidth <= 0 || savedHeight <= 0) {
+            throw new IllegalArgumentException("Saved World has no size");
+        }//if
+        //Check the rest of the header before anything is changed
+        int headerLeft = STATE_HEADER_SIZE - 16;
+        int header = in.position();
+        int savedOutcome = in.getInt(header + 20);
+        if (in.getInt(header + 16) < 0 || in.getLong(header + 24) < 0
+                || (savedOutcome != IN_PROGRESS && savedOutcome != LOST && savedOutcome != WON)
+                || (in.get(header + 64) != 0 && in.get(header + 64) != 1)) {
+            throw new IllegalArgumentException("Saved World is damaged");
+        }//if
+        //The lengths of the lists are the last 12 bytes of the header
+        int counts = header + headerLeft - 12;
+        int aliens = in.getInt(counts);
+        int shots = in.getInt(counts + 4);
+        int enemyShots = in.getInt(counts + 8);
+        if (aliens < 0 || shots < 0 || enemyShots < 0
+                || in.remaining() - headerLeft < 32L * aliens + 16L * shots + 16L * enemyShots) {
+            throw new IllegalArgumentException("Saved World is incomplete");
+        }//if
+        double scaleX = (double) width / savedWidth;
+        double scaleY = (double) height / savedHeight;
+        if (width != this.width || height != this.height) {
+            setBounds(width, height);
+        }//if
+        reset(in.getLong());
+        random.setState(in.getLong());
+        numShot = in.getInt();
+        outcome = in.getInt();
+        elapsedNanos = in.getLong();
+        steerX = in.getDouble() * scaleX;
+        player.setX(in.getDouble() * scaleX);
+        in.getDouble(); //The player's height is decided by the size of the playing area
+        player.setVx(in.getDouble());
+        if (in.get() != 0) {
+            player.hit();
+        }//if
+        in.position(in.position() + 12); //The lengths of the lists, read above
+
+        for (int i = 0; i < aliens; i++) {
+            double x = in.getDouble() * scaleX;
+            double y = in.getDouble() * scaleY;
+            double vx = in.getDouble();
+            double vy = in.getDouble();
+            if (dataOriented) {
+                alienSwarm.add(x, y, vx, vy);
+            } else {
+                AlienShip alien = alienPool.obtain();
+                alien.reset(x, vx, vy);
+                alien.setY(y);
+                enemyEntities.add(alien);
+            }//if
+        }//for
+        for (int i = 0; i < shots; i++) {
+            double x = in.getDouble() * scaleX;
+            double y = in.getDouble() * scaleY;
+            if (dataOriented) {
+                shotSwarm.add(x, y, 0, Shot.SPEED);
+            } else {
+                Shot shot = shotPool.obtain();
+                shot.reset(x, y);
+                lasers.add(shot);
+            }//if
+        }//for
+        for (int i = 0; i < enemyShots; i++) {
+            double x = in.getDouble() * scaleX;
+            double y = in.getDouble() * scaleY;
+            if (dataOriented) {
+                enemyShotSwarm.add(x, y, 0, EnemyShot.SPEED);
+            } else {
+                EnemyShot shot = enemyShotPool.obtain();
+                shot.reset(x, y);
+                enemyLasers.add(shot);
+            }//if
+        }//for
+        director.readState(in, this);
+    }
+
+    /**
+     * Add an alien at a random position along the top of the screen
+     * @param vx The horizontal velocity
+     * @param vy The vertical velocity
+     */
+    public void spawnAlien(double vx, double vy) {
+        spawnAlien(random.nextDouble(), vx, vy);
+    }
+
+    /**
+     * Add an alien along the top of the screen
+     * @param position Where across the screen, from 0 (against the left edge) to 1 (against the right edge)
+     * @param vx The horizontal velocity
+     * @param vy The vertical velocity
+     */
+    public void spawnAlien(double position, double vx, double vy) {
+        double x = position * (width - AlienShip.dims(this));
+        if (dataOriented) {
+            alienSwarm.add(x, 0, vx, vy);
+            return;
+        }//if
+        AlienShip alien = alienPool.obtain();
+        alien.reset(x, vx, vy);
+        enemyEntities.add(alien);
+    }
+
+    /**
+     * Fire a shot from the middle of the player's ship
+     */
+    public void fireShot() {
+        if (dataOriented) {
+            shotSwarm.add(player.getX() + player.getWidth() / 2, player.getY(), 0, Shot.SPEED);
+            return;
+        }//if
+        Shot shot = shotPool.obtain();
+        shot.reset(player.getX() + player.getWidth() / 2, player.getY());
+        lasers.add(shot);
+    }
+
+    /**
+     * Fire a shot down the screen from the middle of the bottom of an alien
+     * @param alien The index of the alien, less than getEnemyCount
+     */
+    public void fireEnemyShot(int alien) {
+        int shotWidth = Shot.width(this);
+        if (dataOriented) {
+            double x = alienSwarm.getX(alien) + (alienSwarm.getWidth() - shotWidth) / 2;
+            enemyShotSwarm.add(x, alienSwarm.getBottom(alien), 0, EnemyShot.SPEED);
+            return;
+        }//if
+        Entity a = enemyEntities.get(alien);
+        EnemyShot shot = enemyShotPool.obtain();
+        shot.reset(a.getX() + (a.getWidth() - shotWidth) / 2, a.getHitBox().bottom);
+        enemyLasers.add(shot);
+    }
+
+    /**
+     * Move the player's ship towards a point at full speed until its middle reaches the point.
+     * Called again as the point moves, for example while a finger is dragged.
+     * @param x The x coordinate to move towards
+     */
+    public void steerTowards(double x) {
+        steerX = x;
+    }
+
+    /**
+     * Stop the player's ship moving
+     */
+    public void stopPlayer() {
+        steerX = Double.NaN;
+        player.setVx(0);
+    }
+
+    /**
+     * Set the player's speed for this tick so it heads for the steering point without going past it
+     * @param dt The length of the tick in milliseconds
+     */
+    private void steer(double dt) {
+        if (Double.isNaN(steerX) || dt <= 0) {
+            return;
+        }//if
+        double distance = steerX - (player.getX() + player.getWidth() / 2.0);
+        if (Math.abs(distance) <= PLAYER_SPEED * dt) {
+            player.setVx(distance / dt);
+        } else {
+            player.setVx(distance < 0 ? -PLAYER_SPEED : PLAYER_SPEED);
+        }//if
+    }
+
+    /**
+     * Carry out one command from the player
+     * @param type InputQueue.STEER, STOP or FIRE
+     * @param value The command's argument
+     */
+    public void apply(int type, double value) {
+        if (type == InputQueue.STEER) {
+            steerTowards(value);
+        } else if (type == InputQueue.STOP) {
+            stopPlayer();
+        } else if (type == InputQueue.FIRE) {
+            fireShot();
+        }//if
+    }
+
+    /**
+     * Remove the Entities that are no longer valid and give them back to their pool
+     * @param list The list to remove them from
+     */
+    private void removeInvalid(EntityList list) {
+        for (int i = list.size() - 1; i >= 0; i--) {
+            if (!list.get(i).isValid()) {
+                recycle(list.removeAt(i));
+            }//if
+        }//for
+    }
+
+    /**
+     * Give an Entity that has left the game back to the pool it came from
+     * @param e The Entity to reuse later
+     */
+    private void recycle(Entity e) {
+        if (e instanceof AlienShip) {
+            alienPool.free((AlienShip) e);
+        } else if (e instanceof Shot) {
+            shotPool.free((Shot) e);
+        } else if (e instanceof EnemyShot) {
+            enemyShotPool.free((EnemyShot) e);
+        }//if
+    }
+
+    /**
+     * Change the size of the playing area (in case of screen rotation or a resized window), even during a game.
+     * Everything is moved in proportion and resized the same way readState does, so it keeps its place on
+     * the screen, and the player is put back on the bottom edge.
+     * Only call this when the size has actually changed, and only between steps.
+     * @param width The new width in pixels
+     * @param height The new height in pixels
+     */
+    public void setBounds(int width, int height) {
+        double scaleX = (double) width / this.width;
+        double scaleY = (double) height / this.height;
+        this.width = width;
+        this.height = height;
+        bounds.set(0, 0, width, height);
+        aliens.setCellSize(2 * AlienShip.dims(this));
+        alienSwarm.setSize(AlienShip.dims(this), AlienShip.dims(this));
+        shotSwarm.setSize(Shot.width(this), Shot.height(this));
+        enemyShotSwarm.setSize(Shot.width(this), Shot.height(this));
+        if (player == null) {
+            //Called by the constructor, there is nothing to move yet
+            return;
+        }//if
+
+        alienSwarm.scale(scaleX, scaleY);
+        shotSwarm.scale(scaleX, scaleY);
+        enemyShotSwarm.scale(scaleX, scaleY);
+        rescale(enemyEntities, scaleX, scaleY, AlienShip.dims(this), AlienShip.dims(this));
+        rescale(lasers, scaleX, scaleY, Shot.width(this), Shot.height(this));
+        rescale(enemyLasers, scaleX, scaleY, Shot.width(this), Shot.height(this));
+        steerX *= scaleX;
+        int dims = ShipEntity.dims(this);
+        player.init(player.getVx(), player.getVy(), player.getX() * scaleX, height - dims - 10, dims, dims);
+        player.checkHitBox();
+    }
+
+    /**
+     * Move every Entity in a list in proportion and give it a new size
+     */
+    private static void rescale(EntityList list, double scaleX, double scaleY, int width, int height) {
+        for (int i = 0; i < list.size(); i++) {
+            Entity e = list.get(i);
+            e.init(e.getVx(), e.getVy(), e.getX() * scaleX, e.getY() * scaleY, width, height);
+        }//for
+    }
+
+    /**
+     * Gets a rectangle that contains the entire playing area.
+     * The same rectangle is returned every time so do not change it.
+     * @return The bounds of the world
+     */
+    public HitBox getBounds() {
+        return bounds;
+    }
+
+    /**
+     * @return The width of the playing area in pixels
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * @return The height of the playing area in pixels
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * The list of enemies
+     * @return The current list of enemy Entities
+     */
+    public EntityList getEnemies() {
+        return enemyEntities;
+    }
+
+    /**
+     * The list of shots
+     * @return The current list of Shots
+     */
+    public EntityList getShots() {
+        return lasers;
+    }
+
+    /**
+     * The list of shots fired by the aliens
+     * @return The current list of EnemyShots
+     */
+    public EntityList getEnemyShots() {
+        return enemyLasers;
+    }
+
+    /**
+     * @return The aliens when in data oriented mode, otherwise an empty Swarm
+     */
+    public Swarm getAliens() {
+        return alienSwarm;
+    }
+
+    /**
+     * @return The shots when in data oriented mode, otherwise an empty Swarm
+     */
+    public Swarm getShotSwarm() {
+        return shotSwarm;
+    }
+
+    /**
+     * @return The number of aliens in the game, however they are stored
+     */
+    public int getEnemyCount() {
+        return enemyEntities.size() + alienSwarm.size();
+    }
+
+    /**
+     * @return The number of shots in the game, however they are stored
+     */
+    public int getShotCount() {
+        return lasers.size() + shotSwarm.size();
+    }
+
+    /**
+     * @return The number of shots fired by the aliens that are still in the game, however they are stored
+     */
+    public int getEnemyShotCount() {
+        return enemyLasers.size() + enemyShotSwarm.size();
+    }
+
+    /**
+     * @return true if the aliens and shots are stored in Swarms instead of as Entities
+     */
+    public boolean isDataOriented() {
+        return dataOriented;
+    }
+
+    /**
+     * @return The player's ship
+     */
+    public ShipEntity getPlayer() {
+        return player;
+    }
+
+    /**
+     * Returns the number of aliens shot during this game
+     * @return the number of aliens shot so far.
+     */
+    public int getNumAliensShot() {
+        return numShot;
+    }
+
+    /**
+     * @return IN_PROGRESS, LOST or WON
+     */
+    public int getOutcome() {
+        return outcome;
+    }
+
+    /**
+     * @return The random numbers used by the rules of the game. Only use this from the game thread.
+     */
+    public GameRandom getRandom() {
+        return random;
+    }
+
+    /**
+     * @return The seed this game was reset with
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * @return The total simulated time of this game in nanoseconds
+     */
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+}
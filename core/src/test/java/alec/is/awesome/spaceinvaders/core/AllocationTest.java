@@ -0,0 +1,147 @@
+package alec.is.awesome.spaceinvaders.core;
+
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.*;
+
+/**
+ * Checks that the game's per tick bookkeeping creates no garbage once it has warmed up.
+ * This uses the HotSpot per thread allocation counter, so it is skipped on JVMs without one.
+ * The JIT can occasionally allocate a few bytes once while recompiling, so the tests check
+ * that less than one byte per tick is allocated on average. Even the smallest object created
+ * every tick would be thousands of times over that.
+ */
+public class AllocationTest {
+    private static final int TICKS = 10000;
+
+    /**
+     * An Entity that does nothing so that only the storage is measured
+     */
+    private static class Dummy extends Entity {
+        Dummy(World world, int x) {
+            super(world, Sprite.ENEMY_SHIP, 0, 0, x, 0, 10, 10);
+        }
+
+        @Override
+        public void checkHitBox() {}
+
+        @Override
+        public void collideAction(Entity other) {}
+    }
+
+    /**
+     * @return The number of bytes this thread has allocated so far
+     */
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+                .getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /**
+     * Kill and spawn a few Entities, then publish and read a frame, the way a tick does
+     */
+    private static void churn(World world, EntityList list, Dummy[] spares, SnapshotBuffer buffer, int tick) {
+        for (int i = 0; i < 8; i++) {
+            Entity e = list.removeAt((tick * 31 + i * 17) % list.size());
+            list.add(e);
+        }
+        for (int i = 0; i < 4; i++) {
+            spares[(tick + i) % spares.length].valid = false;
+        }
+        list.removeInvalid();
+        for (Dummy d : spares) {
+            if (!d.valid) {
+                d.valid = true;
+                list.add(d);
+            }
+        }
+        world.writeSnapshot(buffer.beginWrite());
+        buffer.publish();
+        buffer.acquire();
+    }
+
+    @Test
+    public void entityChurnAndSnapshots_allocateNothing() throws Exception {
+        assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+
+        World world = new World(1000, 1000);
+        EntityList list = world.getEnemies();
+        Dummy[] spares = new Dummy[1000];
+        for (int i = 0; i < spares.length; i++) {
+            spares[i] = new Dummy(world, i % 990);
+            list.add(spares[i]);
+        }
+        SnapshotBuffer buffer = new SnapshotBuffer();
+
+        //Let the arrays grow and the JIT compile everything first
+        for (int t = 0; t < TICKS; t++) {
+            churn(world, list, spares, buffer, t);
+        }
+
+        //Reading the counter can allocate a little itself, so measure that and take it off
+        long overhead = -allocatedBytes() + allocatedBytes();
+        long before = allocatedBytes();
+        for (int t = 0; t < TICKS; t++) {
+            churn(world, list, spares, buffer, t);
+        }
+        long garbage = allocatedBytes() - before - overhead;
+
+        assertEquals(1000, list.size());
+        assertEquals(1001, buffer.acquire().size());
+        assertEquals("bytes allocated per tick", 0, garbage / TICKS);
+    }
+
+    @Test
+    public void worldStep_allocatesNothing() throws Exception {
+        assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+
+        //Aliens that only move sideways so the swarm stays on screen the whole time
+        World world = new World(1080, 1920);
+        for (int i = 0; i < 500; i++) {
+            world.getEnemies().add(new AlienShip(world, (i % 7 - 3) / 10.0, 0));
+        }
+        assertStepAllocatesNothing(world);
+    }
+
+    @Test
+    public void dataOrientedWorldStep_allocatesNothing() throws Exception {
+        assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+
+        World world = new World(1080, 1920, true);
+        for (int i = 0; i < 500; i++) {
+            world.spawnAlien((i % 7 - 3) / 10.0, 0);
+        }
+        assertStepAllocatesNothing(world);
+    }
+
+    /**
+     * Step a World with shots flying until it has warmed up, then check that stepping it more allocates nothing
+     */
+    private void assertStepAllocatesNothing(World world) {
+        long dt = 1000000000L / 60;
+
+        for (int t = 0; t < TICKS; t++) {
+            if (t % 30 == 0) {
+                world.fireShot();
+            }
+            world.step(dt);
+        }
+
+        int killsBefore = world.getNumAliensShot();
+        long overhead = -allocatedBytes() + allocatedBytes();
+        long before = allocatedBytes();
+        for (int t = 0; t < TICKS; t++) {
+            if (t % 30 == 0) {
+                world.fireShot();
+            }
+            world.step(dt);
+        }
+        long garbage = allocatedBytes() - before - overhead;
+
+        assertTrue("shots should keep hitting aliens", world.getNumAliensShot() > killsBefore);
+        assertEquals("bytes allocated per tick", 0, garbage / TICKS);
+    }
+}
@@ -0,0 +1,94 @@
+package alec.is.awesome.spaceinvaders.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests that Entities reused from an EntityPool come back exactly like new ones.
+ */
+public class EntityPoolTest {
+    private static final long STEP = 16000000;
+
+    /**
+     * A World that only has the aliens the test spawns
+     */
+    private static World quietWorld() {
+        World world = new World(1000, 1000);
+        world.setSpawnDirector(SpawnDirector.parse("win 1000\nwave duration=60 rate=0 cap=1000\n"));
+        world.reset(1);
+        return world;
+    }
+
+    @Test
+    public void shotAlien_isResetWhenSpawnedAgain() throws Exception {
+        World world = quietWorld();
+        ShipEntity player = world.getPlayer();
+        int dims = AlienShip.dims(world);
+
+        //A slowly falling alien right above the player, shot down
+        world.spawnAlien((player.getX() + player.getWidth() / 2.0 - dims / 2.0) / (world.getWidth() - dims), 0, 0.05);
+        Entity alien = world.getEnemies().get(0);
+        world.fireShot();
+        Entity shot = world.getShots().get(0);
+        for (int t = 0; t < 200 && world.getNumAliensShot() == 0; t++) {
+            world.step(STEP);
+        }
+        assertEquals(1, world.getNumAliensShot());
+        assertEquals(0, world.getEnemies().size());
+        assertEquals(0, world.getShots().size());
+        assertFalse(alien.isValid());
+        assertFalse(shot.isValid());
+
+        world.spawnAlien(0.25, -0.1, 0.2);
+        assertSame(alien, world.getEnemies().get(0));
+        assertFresh(alien, Sprite.ENEMY_SHIP, 0.25 * (world.getWidth() - dims), 0, -0.1, 0.2, dims, dims);
+
+        world.fireShot();
+        assertSame(shot, world.getShots().get(0));
+        assertFresh(shot, Sprite.PLAYER_LASER, player.getX() + player.getWidth() / 2, player.getY(),
+                0, Shot.SPEED, Shot.width(world), Shot.height(world));
+    }
+
+    @Test
+    public void enemyShotOffScreen_isResetWhenFiredAgain() throws Exception {
+        World world = quietWorld();
+        int dims = AlienShip.dims(world);
+
+        //An alien in the corner away from the player, so its shot falls off the bottom of the screen
+        world.spawnAlien(0, 0, 0);
+        world.fireEnemyShot(0);
+        Entity shot = world.getEnemyShots().get(0);
+        for (int t = 0; t < 500 && world.getEnemyShotCount() > 0; t++) {
+            world.step(STEP);
+        }
+        assertEquals(0, world.getEnemyShotCount());
+        assertFalse(shot.isValid());
+
+        world.spawnAlien(1, 0, 0);
+        world.fireEnemyShot(1);
+        Entity alien = world.getEnemies().get(1);
+        assertSame(shot, world.getEnemyShots().get(0));
+        assertFresh(shot, Sprite.ENEMY_LASER, alien.getX() + (dims - Shot.width(world)) / 2, dims,
+                0, EnemyShot.SPEED, Shot.width(world), Shot.height(world));
+    }
+
+    /**
+     * Checks every field an Entity keeps against what a new one would have
+     */
+    private static void assertFresh(Entity e, Sprite sprite, double x, double y, double vx, double vy, int width, int height) {
+        assertTrue(e.isValid());
+        assertSame(sprite, e.getSprite());
+        assertEquals(x, e.getX(), 0);
+        assertEquals(y, e.getY(), 0);
+        assertEquals(vx, e.getVx(), 0);
+        assertEquals(vy, e.getVy(), 0);
+        assertEquals(width, e.getWidth());
+        assertEquals(height, e.getHeight());
+        HitBox box = e.getHitBox();
+        assertEquals((int) x, box.left);
+        assertEquals((int) y, box.top);
+        assertEquals((int) (x + width), box.right);
+        assertEquals((int) (y + height), box.bottom);
+    }
+}
@@ -0,0 +1,74 @@
+package alec.is.awesome.spaceinvaders.core;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for how Entities move when the World is stepped.
+ */
+public class EntityTest {
+
+    /**
+     * An Entity that never leaves the screen, so only its movement is tested
+     */
+    private static class Drifter extends Entity {
+        Drifter(World world, double x) {
+            super(world, Sprite.ENEMY_SHIP, 0.01, 0.02, x, 0, 10, 10);
+        }
+
+        @Override
+        public void checkHitBox() {}
+
+        @Override
+        public void collideAction(Entity other) {}
+    }
+
+    @Test
+    public void equalVelocities_stayInLockstep() throws Exception {
+        World world = new World(1000, 1000);
+        Drifter a = new Drifter(world, 100);
+        Drifter b = new Drifter(world, 300);
+        world.getEnemies().add(a);
+        world.getEnemies().add(b);
+
+        //Uneven tick lengths, like a real device would produce
+        Random r = new Random(42);
+        long total = 0;
+        for (int i = 0; i < 10000; i++) {
+            long dt = 100000 + r.nextInt(2000000);
+            total += dt;
+            world.step(dt);
+            assertEquals(200, b.getX() - a.getX(), 1e-9);
+            assertEquals(a.getY(), b.getY(), 0);
+        }
+
+        assertEquals(total, world.getElapsedNanos());
+        assertEquals(100 + 0.01 * total / 1000000.0, a.getX(), 1e-6);
+        assertEquals(0.02 * total / 1000000.0, a.getY(), 1e-6);
+    }
+
+    @Test
+    public void steeredShip_stopsUnderTheFinger() throws Exception {
+        World world = new World(1000, 1000);
+        ShipEntity player = world.getPlayer();
+        world.steerTowards(800);
+
+        for (int i = 0; i < 200; i++) {
+            world.step(16000000);
+            assertTrue(player.getX() + player.getWidth() / 2.0 <= 800 + 1e-9);
+        }
+        assertEquals(800, player.getX() + player.getWidth() / 2.0, 1e-9);
+
+        world.steerTowards(100);
+        world.step(16000000);
+        assertEquals(-World.PLAYER_SPEED, player.getVx(), 0);
+
+        world.stopPlayer();
+        double x = player.getX();
+        world.step(16000000);
+        assertEquals(x, player.getX(), 0);
+    }
+}
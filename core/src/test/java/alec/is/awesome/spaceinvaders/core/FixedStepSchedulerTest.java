@@ -0,0 +1,97 @@
+package alec.is.awesome.spaceinvaders.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests that a FixedStepScheduler hands out whole steps for the real time that has passed.
+ */
+public class FixedStepSchedulerTest {
+    private static final long MS = 1000000;
+    private static final long START = 123456789L; //Any time, nanoTime does not start at 0
+
+    @Test
+    public void advance_carriesTheRemainder() throws Exception {
+        FixedStepScheduler scheduler = new FixedStepScheduler(100); //10 ms steps
+        scheduler.reset(START);
+        //7 ms is not a step yet, but two of them are
+        assertEquals(0, scheduler.advance(START + 7 * MS));
+        assertEquals(1, scheduler.advance(START + 14 * MS));
+        //4 ms left over, so 6 ms more make the next step
+        assertEquals(0, scheduler.advance(START + 19 * MS));
+        assertEquals(1, scheduler.advance(START + 20 * MS));
+        assertEquals(2, scheduler.advance(START + 45 * MS));
+
+        //Over a long run no time is lost or made up, whatever the frame times are
+        scheduler.reset(START);
+        long now = START;
+        int steps = 0;
+        for (int i = 0; i < 1000; i++) {
+            now += (3 + i % 11) * MS;
+            steps += scheduler.advance(now);
+        }
+        assertEquals((now - START) / (10 * MS), steps);
+    }
+
+    @Test
+    public void advance_dropsTimeThatCannotBeCaughtUp() throws Exception {
+        FixedStepScheduler scheduler = new FixedStepScheduler(100);
+        scheduler.reset(START);
+        //A 1 second stall is 100 steps, but only a few are run and the rest are dropped
+        assertEquals(FixedStepScheduler.MAX_STEPS_PER_ADVANCE, scheduler.advance(START + 1003 * MS));
+        //Only the part of a step left over is kept, so the game does not keep catching up afterwards
+        assertEquals(0, scheduler.advance(START + 1009 * MS));
+        assertEquals(1, scheduler.advance(START + 1010 * MS));
+        assertEquals(1, scheduler.advance(START + 1020 * MS));
+    }
+
+    @Test
+    public void reset_forgetsTheTimeAway() throws Exception {
+        FixedStepScheduler scheduler = new FixedStepScheduler(100);
+        scheduler.reset(START);
+        assertEquals(0, scheduler.advance(START + 9 * MS));
+        //Paused for a minute
+        scheduler.reset(START + 60000 * MS);
+        assertEquals(0, scheduler.advance(START + 60009 * MS));
+        assertEquals(1, scheduler.advance(START + 60010 * MS));
+    }
+
+    @Test
+    public void nanosUntilNextStep_countsDownToTheNextStep() throws Exception {
+        FixedStepScheduler scheduler = new FixedStepScheduler(100);
+        scheduler.reset(START);
+        assertEquals(10 * MS, scheduler.nanosUntilNextStep(START));
+        assertEquals(6 * MS, scheduler.nanosUntilNextStep(START + 4 * MS));
+
+        //The time carried over counts too
+        assertEquals(1, scheduler.advance(START + 13 * MS));
+        assertEquals(7 * MS, scheduler.nanosUntilNextStep(START + 13 * MS));
+        assertEquals(2 * MS, scheduler.nanosUntilNextStep(START + 18 * MS));
+        //Never less than 0 when a step is overdue
+        assertEquals(0, scheduler.nanosUntilNextStep(START + 20 * MS));
+        assertEquals(0, scheduler.nanosUntilNextStep(START + 500 * MS));
+    }
+
+    @Test
+    public void ticksPerSecond_setTheStepLength() throws Exception {
+        for (int ticksPerSecond : new int[]{1, 30, 60, 120, 240, 7}) {
+            FixedStepScheduler scheduler = new FixedStepScheduler(ticksPerSecond);
+            long step = 1000000000L / ticksPerSecond;
+            assertEquals(step, scheduler.getStepNanos());
+
+            //One second of evenly spaced frames gives one second of steps
+            scheduler.reset(START);
+            int steps = 0;
+            for (int frame = 1; frame <= 250; frame++) {
+                steps += scheduler.advance(START + 1000000000L * frame / 250);
+            }
+            assertEquals("at " + ticksPerSecond + " ticks per second", ticksPerSecond, steps);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void ticksPerSecond_mustBePositive() throws Exception {
+        new FixedStepScheduler(0);
+    }
+}
@@ -0,0 +1,214 @@
+package alec.is.awesome.spaceinvaders.core;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the states a game goes through, including the UI thread and the game thread changing it at once.
+ */
+public class GameStateTest {
+
+    @Test
+    public void pauseWhileStarting_pausesOnceSetUp() throws Exception {
+        GameState state = new GameState(GameState.MENU);
+        List<Integer> shown = listen(state);
+        assertTrue(state.startGame());
+        assertEquals(GameState.STARTING, state.get());
+        assertTrue(state.isTakingInput());
+
+        //Nothing for the game thread to wake for, it is already setting up the game
+        assertFalse(state.pause());
+        assertEquals(GameState.STARTING_PAUSED, state.get());
+        assertEquals(GameState.PAUSED, state.getShown());
+        assertTrue(state.isPaused());
+        assertTrue(state.isRunning());
+        assertFalse(state.isTakingInput());
+
+        state.finishStarting();
+        assertEquals(GameState.PAUSED, state.get());
+        //Never shown IN_GAME on the way
+        assertEquals(Collections.singletonList(GameState.PAUSED), shown);
+    }
+
+    @Test
+    public void resumeWhileStarting_playsOnceSetUp() throws Exception {
+        GameState state = new GameState(GameState.LOSE);
+        List<Integer> shown = listen(state);
+        assertTrue(state.startGame());
+        assertFalse(state.pause());
+
+        assertTrue(state.resume(false));
+        assertEquals(GameState.STARTING, state.get());
+        assertEquals(GameState.IN_GAME, state.getShown());
+        assertTrue(shown.isEmpty());
+
+        state.finishStarting();
+        assertEquals(GameState.IN_GAME, state.get());
+        assertEquals(Collections.singletonList(GameState.IN_GAME), shown);
+    }
+
+    @Test
+    public void resumeWhileStarting_ignoresWaitingForTap() throws Exception {
+        GameState state = new GameState(GameState.WIN);
+        assertTrue(state.startGame());
+        assertFalse(state.pause());
+        //Only a restored game waits for a tap, and a game being started is a new one
+        assertTrue(state.resume(true));
+        state.finishStarting();
+        assertEquals(GameState.IN_GAME, state.get());
+    }
+
+    @Test
+    public void pause_wakesTheThreadOnlyForAGameBeingPlayed() throws Exception {
+        GameState state = new GameState(GameState.MENU);
+        assertFalse(state.pause());
+        assertEquals(GameState.MENU, state.get());
+        assertFalse(state.resume(false));
+
+        assertTrue(state.startGame());
+        assertFalse(state.startGame());
+        state.finishStarting();
+        assertTrue(state.pause());
+        assertEquals(GameState.PAUSED, state.get());
+        assertFalse(state.pause());
+
+        //A restored game stays paused until it is tapped
+        assertFalse(state.resume(true));
+        assertEquals(GameState.PAUSED, state.get());
+        assertTrue(state.resume(false));
+        assertEquals(GameState.IN_GAME, state.get());
+    }
+
+    @Test
+    public void end_finishesAPausedGame() throws Exception {
+        GameState state = new GameState(GameState.MENU);
+        assertFalse(state.end(GameState.WIN));
+        assertTrue(state.startGame());
+        assertFalse(state.end(GameState.WIN));
+        state.finishStarting();
+        state.pause();
+        assertTrue(state.end(GameState.LOSE));
+        assertEquals(GameState.LOSE, state.get());
+        assertFalse(state.isRunning());
+        assertTrue(state.startGame());
+    }
+
+    @Test
+    public void release_isForGood() throws Exception {
+        GameState state = new GameState(GameState.MENU);
+        List<Integer> shown = listen(state);
+        assertTrue(state.startGame());
+        assertEquals(GameState.STARTING, state.release());
+
+        state.finishStarting();
+        assertFalse(state.pause());
+        assertFalse(state.resume(false));
+        assertFalse(state.startGame());
+        assertFalse(state.end(GameState.LOSE));
+        assertEquals(GameState.RELEASED, state.get());
+        assertEquals(GameState.MENU, state.getShown());
+        assertFalse(state.isRunning());
+        assertTrue(shown.isEmpty());
+    }
+
+    @Test
+    public void pauseAndResumeRacingTheGameThread_lastOneWins() throws Exception {
+        final Random r = new Random(3);
+        for (int run = 0; run < 2000; run++) {
+            final GameState state = new GameState(GameState.MENU);
+            assertTrue(state.startGame());
+            final int changes = 1 + r.nextInt(20);
+            final CyclicBarrier go = new CyclicBarrier(2);
+
+            //The UI thread pauses and resumes while the game thread sets up the game
+            Thread ui = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    await(go);
+                    for (int i = 0; i < changes; i++) {
+                        if (i % 2 == 0) {
+                            state.pause();
+                        } else {
+                            state.resume(false);
+                        }
+                    }
+                }
+            });
+            ui.start();
+            await(go);
+            state.finishStarting();
+            ui.join();
+
+            //An odd number of changes ends on a pause
+            int expected = changes % 2 == 1 ? GameState.PAUSED : GameState.IN_GAME;
+            assertEquals("run " + run, expected, state.get());
+        }
+    }
+
+    @Test
+    public void pauseAndResumeRacingRelease_staysReleased() throws Exception {
+        for (int run = 0; run < 2000; run++) {
+            final GameState state = new GameState(GameState.MENU);
+            assertTrue(state.startGame());
+            state.finishStarting();
+            final CyclicBarrier go = new CyclicBarrier(2);
+            final AtomicBoolean changedAfterRelease = new AtomicBoolean(false);
+
+            Thread ui = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    await(go);
+                    for (int i = 0; i < 50; i++) {
+                        boolean released = state.get() == GameState.RELEASED;
+                        boolean changed = state.pause();
+                        changed |= state.resume(false);
+                        changed |= state.end(GameState.LOSE);
+                        changed |= state.startGame();
+                        state.finishStarting();
+                        if (released && changed) {
+                            changedAfterRelease.set(true);
+                        }
+                    }
+                }
+            });
+            ui.start();
+            await(go);
+            int before = state.release();
+            ui.join();
+
+            assertTrue("run " + run, before != GameState.RELEASED);
+            assertFalse("run " + run, changedAfterRelease.get());
+            assertEquals("run " + run, GameState.RELEASED, state.get());
+        }
+    }
+
+    /**
+     * Collects every state the listener is told about
+     */
+    private static List<Integer> listen(GameState state) {
+        final List<Integer> shown = Collections.synchronizedList(new ArrayList<Integer>());
+        state.setListener(new GameState.Listener() {
+            @Override
+            public void stateChanged(int to) {
+                shown.add(to);
+            }
+        });
+        return shown;
+    }
+
+    private static void await(CyclicBarrier barrier) {
+        try {
+            barrier.await();
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package alec.is.awesome.spaceinvaders.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the percentiles reported by Histogram.
+ */
+public class HistogramTest {
+
+    @Test
+    public void percentiles_withinBucketPrecision() throws Exception {
+        Histogram h = new Histogram("test", 1000000000L);
+        for (long v = 1; v <= 100000; v++) {
+            h.record(v * 1000);
+        }
+
+        assertEquals(100000, h.getCount());
+        assertEquals(100000000L, h.getMax());
+        assertEquals(50000000L, h.getPercentile(50), 50000000L / 64);
+        assertEquals(99000000L, h.getPercentile(99), 99000000L / 64);
+        assertEquals(100000000L, h.getPercentile(100));
+    }
+
+    @Test
+    public void everyValue_fallsInsideItsBucket() throws Exception {
+        for (long v = 0; v < 1000000; v += 7) {
+            int i = Histogram.indexOf(v);
+            assertTrue(v <= Histogram.highestValueIn(i));
+            assertTrue(i == 0 || v > Histogram.highestValueIn(i - 1));
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package alec.is.awesome.spaceinvaders.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests that commands pass between two threads without being lost or reordered.
+ */
+public class InputQueueTest {
+
+    @Test
+    public void commandsFromAnotherThread_arriveInOrder() throws Exception {
+        final InputQueue queue = new InputQueue(16);
+        final int commands = 100000;
+        Thread writer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                for (int i = 0; i < commands; i++) {
+                    while (!queue.offer(i % 3, i, i)) {
+                        Thread.yield();
+                    }
+                }
+            }
+        });
+        writer.start();
+
+        int read = 0;
+        while (read < commands) {
+            if (queue.next()) {
+                assertEquals(read % 3, queue.getType());
+                assertEquals(read, queue.getValue(), 0);
+                assertEquals(read, queue.getTime());
+                read++;
+            } else {
+                Thread.yield();
+            }
+        }
+        writer.join();
+        assertFalse(queue.next());
+    }
+
+    @Test
+    public void fullQueue_dropsNewCommands() throws Exception {
+        InputQueue queue = new InputQueue(4);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(queue.offer(InputQueue.FIRE, i, i));
+        }
+        assertFalse(queue.offer(InputQueue.FIRE, 4, 4));
+        assertEquals(1, queue.getDropped());
+
+        assertTrue(queue.next());
+        assertEquals(0, queue.getValue(), 0);
+        //The first command's slot is only freed once the reader moves past it
+        assertTrue(queue.next());
+        assertTrue(queue.offer(InputQueue.FIRE, 5, 5));
+    }
+}
@@ -0,0 +1,99 @@
+package alec.is.awesome.spaceinvaders.core;
+
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests that a ParallelRunner runs every chunk once and fails on the calling thread instead of hanging.
+ */
+public class ParallelRunnerTest {
+    private static final int COUNT = 10000;
+
+    @Test(timeout = 10000)
+    public void run_coversEveryItemOnce() throws Exception {
+        ParallelRunner runner = new ParallelRunner(4, 100);
+        try {
+            final AtomicIntegerArray seen = new AtomicIntegerArray(COUNT);
+            runner.run(COUNT, new ParallelRunner.Task() {
+                @Override
+                public void run(int chunk, int from, int to) {
+                    for (int i = from; i < to; i++) {
+                        seen.incrementAndGet(i);
+                    }
+                }
+            });
+            for (int i = 0; i < COUNT; i++) {
+                assertEquals(1, seen.get(i));
+            }
+        } finally {
+            runner.shutdown();
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void errorInAChunk_isThrownByRun() throws Exception {
+        ParallelRunner runner = new ParallelRunner(4, 100);
+        try {
+            assertTrue(runner.chunksFor(COUNT) > 1);
+            final AtomicIntegerArray ran = new AtomicIntegerArray(ParallelRunner.MAX_CHUNKS);
+            //Thrown by every chunk but the first, so the worker threads are sure to throw some
+            try {
+                runner.run(COUNT, new ParallelRunner.Task() {
+                    @Override
+                    public void run(int chunk, int from, int to) {
+                        ran.incrementAndGet(chunk);
+                        if (chunk > 0) {
+                            throw new AssertionError("chunk " + chunk);
+                        }
+                    }
+                });
+                fail("the error was lost");
+            } catch (AssertionError e) {
+                assertTrue(e.getMessage().startsWith("chunk "));
+            }
+            for (int c = 0; c < runner.chunksFor(COUNT); c++) {
+                assertEquals(1, ran.get(c));
+            }
+
+            //The runner still works after a failure
+            final AtomicIntegerArray seen = new AtomicIntegerArray(COUNT);
+            runner.run(COUNT, new ParallelRunner.Task() {
+                @Override
+                public void run(int chunk, int from, int to) {
+                    for (int i = from; i < to; i++) {
+                        seen.incrementAndGet(i);
+                    }
+                }
+            });
+            for (int i = 0; i < COUNT; i++) {
+                assertEquals(1, seen.get(i));
+            }
+        } finally {
+            runner.shutdown();
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void runtimeExceptionInOneChunk_isThrownByRun() throws Exception {
+        ParallelRunner runner = new ParallelRunner(4, 100);
+        final int last = runner.chunksFor(COUNT) - 1;
+        try {
+            runner.run(COUNT, new ParallelRunner.Task() {
+                @Override
+                public void run(int chunk, int from, int to) {
+                    if (chunk == last) {
+                        throw new IllegalStateException("last chunk");
+                    }
+                }
+            });
+            fail("the exception was lost");
+        } catch (IllegalStateException e) {
+            assertEquals("last chunk", e.getMessage());
+        } finally {
+            runner.shutdown();
+        }
+    }
+}
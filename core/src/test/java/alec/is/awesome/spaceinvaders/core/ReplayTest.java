@@ -0,0 +1,140 @@
+package alec.is.awesome.spaceinvaders.core;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests that a recorded game plays out exactly the same when it is replayed.
+ */
+public class ReplayTest {
+    private static final long STEP = 1000000000L / 60;
+
+    @Test
+    public void replay_matchesRecordedGame() throws Exception {
+        checkReplay(false);
+    }
+
+    @Test
+    public void replay_matchesRecordedDataOrientedGame() throws Exception {
+        checkReplay(true);
+    }
+
+    @Test
+    public void replay_matchesRecordedGameWithEnemyFire() throws Exception {
+        checkReplay(false, "win 20\nwave duration=20 rate=1 cap=kills+3 fire=0.3\n");
+        checkReplay(true, "win 20\nwave duration=20 rate=1 cap=kills+3 fire=0.3\n");
+    }
+
+    @Test
+    public void truncatedReplay_isRejected() throws Exception {
+        byte[] data = shortRecording();
+        int rejected = 0;
+        for (int length = 0; length < data.length; length++) {
+            Replay replay;
+            try {
+                replay = new Replay(Arrays.copyOf(data, length));
+            } catch (IOException e) {
+                //Cut off in the header
+                rejected++;
+                continue;
+            }
+            try {
+                replay.play();
+                fail("played a replay cut to " + length + " of " + data.length + " bytes");
+            } catch (IllegalArgumentException e) {
+                rejected++;
+            }
+        }
+        assertEquals(data.length, rejected);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void damagedReplay_isRejected() throws Exception {
+        byte[] data = shortRecording();
+        //The END event's type, which is the second last byte as the game is under 128 ticks since the last input
+        data[data.length - 2] = 9;
+        new Replay(data).play();
+    }
+
+    /**
+     * A recording of two seconds of play with some input, short enough that the game is still going at the end
+     */
+    private static byte[] shortRecording() {
+        World world = new World(1080, 1920);
+        ReplayWriter writer = new ReplayWriter();
+        world.reset(1234);
+        writer.begin(world, STEP);
+        long tick = 0;
+        for (; tick < 120; tick++) {
+            if (tick % 50 == 0) {
+                world.apply(InputQueue.STEER, tick);
+                writer.recordInput(tick, InputQueue.STEER, tick);
+                world.apply(InputQueue.FIRE, 0);
+                writer.recordInput(tick, InputQueue.FIRE, 0);
+            }
+            world.step(STEP);
+        }
+        assertEquals(World.IN_PROGRESS, world.getOutcome());
+        writer.finish(tick);
+        return writer.toByteArray();
+    }
+
+    private void checkReplay(boolean dataOriented) throws Exception {
+        checkReplay(dataOriented, SpawnDirector.DEFAULT_WAVES);
+    }
+
+    /**
+     * Play a game with made up input the way GameLoop does, recording it, then replay it and compare
+     */
+    private void checkReplay(boolean dataOriented, String waves) throws Exception {
+        World world = new World(1080, 1920, dataOriented);
+        world.setSpawnDirector(SpawnDirector.parse(waves));
+        ReplayWriter writer = new ReplayWriter();
+        world.reset(1234);
+        writer.begin(world, STEP);
+
+        Random input = new Random(99);
+        long tick = 0;
+        for (; tick < 20000 && world.getOutcome() == World.IN_PROGRESS; tick++) {
+            if (tick == 5000) {
+                world.setBounds(1920, 1080);
+                writer.recordResize(tick, 1920, 1080);
+            }
+            if (input.nextInt(40) == 0) {
+                int type = input.nextInt(3);
+                double value = input.nextFloat() * world.getWidth();
+                world.apply(type, value);
+                writer.recordInput(tick, type, value);
+            }
+            world.step(STEP);
+        }
+        writer.finish(tick);
+
+        Replay replay = Replay.read(new ByteArrayInputStream(writer.toByteArray()));
+        World replayed = replay.createWorld();
+        assertEquals(tick, replay.play(replayed));
+
+        assertTrue("the game should have had some action", world.getNumAliensShot() > 0 || world.getOutcome() != World.IN_PROGRESS);
+        assertEquals(world.getOutcome(), replayed.getOutcome());
+        assertEquals(world.getNumAliensShot(), replayed.getNumAliensShot());
+        assertEquals(world.getElapsedNanos(), replayed.getElapsedNanos());
+        assertEquals(world.getEnemyCount(), replayed.getEnemyCount());
+        assertEquals(world.getPlayer().getX(), replayed.getPlayer().getX(), 0);
+
+        FrameSnapshot a = new FrameSnapshot();
+        FrameSnapshot b = new FrameSnapshot();
+        world.writeSnapshot(a);
+        replayed.writeSnapshot(b);
+        assertEquals(a.size(), b.size());
+        for (int i = 0; i < a.size(); i++) {
+            assertEquals(a.getX(i), b.getX(i), 0);
+            assertEquals(a.getY(i), b.getY(i), 0);
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package alec.is.awesome.spaceinvaders.core;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests that the session log keeps every game and finds the best scores, even after the files are damaged.
+ */
+public class SessionLogTest {
+    private File dir;
+    private File logFile;
+    private File indexFile;
+
+    @Before
+    public void setUp() throws Exception {
+        dir = File.createTempFile("sessions", "");
+        assertTrue(dir.delete() && dir.mkdir());
+        logFile = new File(dir, "sessions.log");
+        indexFile = new File(dir, "sessions.idx");
+    }
+
+    @After
+    public void tearDown() {
+        for (File f : dir.listFiles()) {
+            f.delete();
+        }
+        dir.delete();
+    }
+
+    @Test
+    public void records_areKeptAfterReopening() throws Exception {
+        SessionLog log = new SessionLog(logFile, indexFile);
+        for (int i = 0; i < 500; i++) {
+            log.append(record(i, i % 37));
+        }
+        log.flush();
+
+        SessionLog reopened = new SessionLog(logFile, indexFile);
+        assertEquals(500, reopened.getCount());
+        SessionRecord r = reopened.get(123);
+        assertEquals(123, r.getStartMillis());
+        assertEquals(123 % 37, r.getScore());
+        assertEquals(World.WON, r.getOutcome());
+        assertEquals(4000, r.getTickMax());
+        assertEquals(36, reopened.getBestScore());
+    }
+
+    @Test
+    public void getTop_isBestFirstAndOldestFirstForTies() throws Exception {
+        SessionLog log = new SessionLog(logFile, indexFile);
+        int[] scores = {5, 9, 1, 9, 7, 0, 5};
+        for (int i = 0; i < scores.length; i++) {
+            log.append(record(i, scores[i]));
+        }
+        List<SessionRecord> top = log.getTop(4);
+        assertEquals(4, top.size());
+        assertEquals(1, top.get(0).getStartMillis());
+        assertEquals(3, top.get(1).getStartMillis());
+        assertEquals(4, top.get(2).getStartMillis());
+        assertEquals(0, top.get(3).getStartMillis());
+    }
+
+    @Test
+    public void index_onlyKeepsTheBestScores() throws Exception {
+        SessionLog log = new SessionLog(logFile, indexFile);
+        for (int i = 0; i < 3 * SessionLog.TOP_SIZE; i++) {
+            log.append(record(i, i));
+        }
+        List<SessionRecord> top = log.getTop(1000);
+        assertEquals(SessionLog.TOP_SIZE, top.size());
+        assertEquals(3 * SessionLog.TOP_SIZE - 1, top.get(0).getScore());
+        assertEquals(2 * SessionLog.TOP_SIZE, top.get(SessionLog.TOP_SIZE - 1).getScore());
+    }
+
+    @Test
+    public void recordsAddedAfterTheIndexWasSaved_areFoundWhenReopened() throws Exception {
+        SessionLog log = new SessionLog(logFile, indexFile);
+        log.append(record(0, 10));
+        log.flush();
+        //Not flushed, as if the process died before the index was saved
+        log.append(record(1, 20));
+
+        SessionLog reopened = new SessionLog(logFile, indexFile);
+        assertEquals(2, reopened.getCount());
+        assertEquals(20, reopened.getBestScore());
+    }
+
+    @Test
+    public void aMissingOrDamagedIndex_isRebuilt() throws Exception {
+        SessionLog log = new SessionLog(logFile, indexFile);
+        for (int i = 0; i < 50; i++) {
+            log.append(record(i, (i * 7) % 50));
+        }
+        log.flush();
+
+        assertTrue(indexFile.delete());
+        assertEquals(49, new SessionLog(logFile, indexFile).getBestScore());
+
+        RandomAccessFile raf = new RandomAccessFile(indexFile, "rw");
+        raf.setLength(5);
+        raf.close();
+        assertEquals(49, new SessionLog(logFile, indexFile).getBestScore());
+    }
+
+    @Test(expected = java.io.IOException.class)
+    public void somethingElse_isNotOpened() throws Exception {
+        RandomAccessFile raf = new RandomAccessFile(logFile, "rw");
+        raf.writeLong(1234);
+        raf.writeLong(5678);
+        raf.close();
+        new SessionLog(logFile, indexFile);
+    }
+
+    private static SessionRecord record(long start, int score) {
+        return new SessionRecord(start, 60000000000L, score, World.WON, 100, 1000, 2000, 4000);
+    }
+}
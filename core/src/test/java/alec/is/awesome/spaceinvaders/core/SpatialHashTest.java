@@ -0,0 +1,75 @@
+package alec.is.awesome.spaceinvaders.core;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests that the SpatialHash broadphase finds exactly the same hits as checking every pair.
+ */
+public class SpatialHashTest {
+    private static final int CELL = 50;
+
+    @Test
+    public void query_findsTheSameHitsAsBruteForce() throws Exception {
+        Random r = new Random(7);
+        SpatialHash grid = new SpatialHash(CELL);
+        IntList out = new IntList(16);
+
+        //Several ticks of very different sizes, so the table grows part way through filling it
+        int[] counts = {10, 2000, 5, 500};
+        for (int count : counts) {
+            HitBox[] boxes = new HitBox[count];
+            grid.clear();
+            for (int i = 0; i < count; i++) {
+                boxes[i] = randomBox(r);
+                assertEquals(i, grid.insert(boxes[i].left, boxes[i].top, boxes[i].right, boxes[i].bottom));
+            }
+
+            for (int q = 0; q < 300; q++) {
+                HitBox box = randomBox(r);
+                boolean[] expected = new boolean[count];
+                for (int i = 0; i < count; i++) {
+                    expected[i] = HitBox.intersects(box, boxes[i]);
+                }
+
+                int found = grid.query(box.left, box.top, box.right, box.bottom);
+                //Anything found that does not overlap is only a candidate, so filter like the World does
+                boolean[] seen = new boolean[count];
+                boolean[] hit = new boolean[count];
+                for (int i = 0; i < found; i++) {
+                    int id = grid.getFound(i);
+                    assertFalse("found twice", seen[id]);
+                    seen[id] = true;
+                    hit[id] = HitBox.intersects(box, boxes[id]);
+                }
+                assertArrayEquals(expected, hit);
+
+                out.clear();
+                grid.query(box.left, box.top, box.right, box.bottom, out);
+                assertEquals(found, out.size());
+                for (int i = 0; i < found; i++) {
+                    assertEquals(grid.getFound(i), out.get(i));
+                }
+            }
+        }
+    }
+
+    /**
+     * A rectangle from one pixel up to three cells across, often starting on or just off a cell edge
+     * and sometimes off the top or left of the screen
+     */
+    private static HitBox randomBox(Random r) {
+        int left = r.nextInt(20) * CELL + (r.nextInt(3) - 1) - CELL;
+        int top = r.nextInt(20) * CELL + (r.nextInt(3) - 1) - CELL;
+        if (r.nextBoolean()) {
+            left += r.nextInt(CELL);
+            top += r.nextInt(CELL);
+        }
+        int width = r.nextBoolean() ? 1 + r.nextInt(CELL) : 1 + r.nextInt(CELL * 3);
+        int height = r.nextBoolean() ? 1 + r.nextInt(CELL) : 1 + r.nextInt(CELL * 3);
+        return new HitBox(left, top, left + width, top + height);
+    }
+}
@@ -0,0 +1,133 @@
+package alec.is.awesome.spaceinvaders.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests that waves spawn aliens on simulated time and respect their caps.
+ */
+public class SpawnDirectorTest {
+    private static final long STEP = 1000000000L / 60;
+
+    @Test
+    public void wave_spawnsAtItsRateOnSimulatedTime() {
+        //The same waves give the same aliens however the time is cut into ticks
+        assertEquals(100, aliensAfterTenSeconds(STEP));
+        assertEquals(100, aliensAfterTenSeconds(STEP * 4));
+    }
+
+    private int aliensAfterTenSeconds(long step) {
+        World world = new World(1080, 1920, true);
+        world.setSpawnDirector(SpawnDirector.parse("win 1000\nwave duration=10 rate=10 cap=500 vx=0 vy=0\n"));
+        world.reset(1);
+        for (long t = 0; t < 10000000000L; t += step) {
+            world.step(step);
+        }
+        return world.getEnemyCount();
+    }
+
+    @Test
+    public void defaultRate_matchesTheOriginalGame() {
+        //About 1.5 aliens a second, whatever the length of the tick
+        World world = new World(1080, 1920, true);
+        world.setSpawnDirector(SpawnDirector.parse("win 1000\nwave duration=60 cap=1000 vx=0 vy=0\n"));
+        world.reset(1);
+        for (int t = 0; t < 60 * 60; t++) {
+            world.step(STEP);
+        }
+        assertEquals(90, world.getEnemyCount());
+    }
+
+    @Test
+    public void lastWave_repeats() {
+        //One quiet second, then four seconds of the last wave rather than going back to the quiet one
+        World world = new World(1080, 1920, true);
+        world.setSpawnDirector(SpawnDirector.parse("win 1000\nwave duration=1 rate=0 cap=1000\nwave duration=1 rate=10 cap=1000 vx=0 vy=0\n"));
+        world.reset(1);
+        for (int t = 0; t < 5 * 60; t++) {
+            world.step(STEP);
+        }
+        assertEquals(40, world.getEnemyCount());
+    }
+
+    @Test
+    public void wave_staysUnderItsCap() {
+        World world = new World(1080, 1920);
+        world.setSpawnDirector(SpawnDirector.parse("# a comment\nwin 3\n\nwave duration=5 rate=100 cap=kills+4 formation=line vy=0\n"));
+        world.reset(1);
+        for (int i = 0; i < 600; i++) {
+            world.step(STEP);
+            assertTrue(world.getEnemyCount() <= 4);
+        }
+        assertEquals(4, world.getEnemyCount());
+        assertEquals(3, world.getSpawnDirector().getKillsToWin());
+    }
+
+    @Test
+    public void spawnHeldByTheCap_waitsAfterAKill() {
+        //One alien at a time at the default rate. The backlog of spawns the cap holds back must not
+        //bring the next alien in on the tick after a kill: like the original roll it waits 1 / 1.5 s on average.
+        World world = new World(1080, 1920);
+        world.setSpawnDirector(SpawnDirector.parse("win 1000\nwave duration=1000 rate=1.5 cap=1 vx=0 vy=0\n"));
+        world.reset(1);
+        int kills = 200;
+        long totalTicks = 0;
+        long nextTickSpawns = 0;
+        for (int k = 0; k < kills; k++) {
+            while (world.getEnemyCount() == 0) {
+                world.step(STEP);
+            }
+            //Leave the alien long enough that more spawns fall due behind it
+            for (int t = 0; t < 120; t++) {
+                world.step(STEP);
+            }
+            //The alien is removed by the next step, which may also spawn the next one
+            world.getEnemies().get(0).collideAction(world.getPlayer());
+            world.step(STEP);
+            int ticks = 1;
+            while (world.getEnemyCount() == 0) {
+                world.step(STEP);
+                ticks++;
+            }
+            totalTicks += ticks;
+            if (ticks <= 2) {
+                nextTickSpawns++;
+            }
+        }
+        double meanSeconds = (double) totalTicks / kills / 60;
+        assertEquals(1 / 1.5, meanSeconds, 0.1);
+        //An exponential wait is under two ticks about 5% of the time
+        assertTrue(nextTickSpawns + " of " + kills + " spawned straight after the kill", nextTickSpawns < kills / 10);
+    }
+
+    @Test
+    public void wave_firesInProportionToTheAliens() {
+        World world = new World(1080, 1920, true);
+        //100 aliens that stay at the top, each firing twice a second
+        world.setSpawnDirector(SpawnDirector.parse("win 1000\nwave duration=1 rate=100 cap=100 vx=0 vy=0 fire=2\n"));
+        world.reset(1);
+        for (int t = 0; t < 60; t++) {
+            world.step(STEP);
+        }
+        assertEquals(100, world.getEnemyCount());
+        long fired = 0;
+        for (int t = 0; t < 60; t++) {
+            int before = world.getEnemyShotCount();
+            world.step(STEP);
+            fired += world.getEnemyShotCount() - before;
+        }
+        //None of the shots can reach the bottom in a second, so all 200 are still in the air
+        assertEquals(200, fired, 2);
+    }
+
+    @Test
+    public void badWaves_reportTheLine() {
+        try {
+            SpawnDirector.parse("win 5\nwave rate=fast\n");
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage(), e.getMessage().startsWith("Waves line 2"));
+        }
+    }
+}
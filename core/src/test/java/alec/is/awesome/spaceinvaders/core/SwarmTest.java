@@ -0,0 +1,137 @@
+package alec.is.awesome.spaceinvaders.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests that Entities stored in a Swarm follow the same rules as AlienShip and Shot.
+ */
+public class SwarmTest {
+
+    @Test
+    public void swarm_movesLikeEntities() throws Exception {
+        World world = new World(1000, 1000);
+        Swarm swarm = new Swarm(Sprite.ENEMY_SHIP, 1);
+        swarm.setSize(AlienShip.dims(world), AlienShip.dims(world));
+        AlienShip[] ships = new AlienShip[50];
+        for (int i = 0; i < ships.length; i++) {
+            ships[i] = new AlienShip(world, (i % 11 - 5) / 7.0, 0);
+            ships[i].setX(i * 17);
+            ships[i].setVy((i % 3) / 10.0);
+            swarm.add(ships[i].getX(), ships[i].getY(), ships[i].getVx(), ships[i].getVy());
+        }
+
+        for (int t = 0; t < 1000; t++) {
+            swarm.integrate(16.6);
+            swarm.bounceOffWalls(world.getWidth());
+            for (int i = 0; i < ships.length; i++) {
+                ships[i].update(16.6);
+                assertEquals(ships[i].getX(), swarm.getX(i), 1e-9);
+                assertEquals(ships[i].getY(), swarm.getY(i), 1e-9);
+                assertEquals(ships[i].getVx(), swarm.getVx(i), 0);
+            }
+        }
+    }
+
+    @Test
+    public void removeDead_keepsTheLiving() throws Exception {
+        Swarm swarm = new Swarm(Sprite.PLAYER_LASER, 4);
+        swarm.setSize(10, 40);
+        for (int i = 0; i < 10; i++) {
+            swarm.add(i * 100, -i * 50, 0, -0.5);
+        }
+        swarm.killOutside(new HitBox(0, 0, 1000, 1000));
+        swarm.kill(1);
+
+        //Only the first shot overlaps the screen, the rest are outside or killed
+        assertEquals(9, swarm.removeDead());
+        assertEquals(1, swarm.size());
+        assertEquals(0, swarm.getX(0), 0);
+    }
+
+    @Test
+    public void dataOrientedWorld_shotsHitAliens() throws Exception {
+        World world = new World(1000, 1000, true);
+        world.spawnAlien(0, 0);
+        Swarm aliens = world.getAliens();
+        ShipEntity player = world.getPlayer();
+
+        //Line the player up under the alien and fire
+        world.steerTowards(aliens.getX(0) + aliens.getWidth() / 2.0);
+        for (int t = 0; t < 100; t++) {
+            world.step(16000000);
+        }
+        world.stopPlayer();
+        world.fireShot();
+        for (int t = 0; t < 200 && world.getNumAliensShot() == 0; t++) {
+            world.step(16000000);
+        }
+
+        assertEquals(1, world.getNumAliensShot());
+        assertEquals(World.IN_PROGRESS, world.getOutcome());
+        assertTrue(world.getEnemyCount() <= 1);
+        assertEquals(0, world.getEnemies().size());
+        assertTrue(player.isValid());
+    }
+
+    @Test
+    public void enemyShots_destroyThePlayer() throws Exception {
+        for (boolean dataOriented : new boolean[]{false, true}) {
+            World world = new World(1000, 1000, dataOriented);
+            //An alien that stays still right above the player
+            world.spawnAlien(0.5, 0, 0);
+            world.fireEnemyShot(0);
+            assertEquals(1, world.getEnemyShotCount());
+            for (int t = 0; t < 200 && world.getOutcome() == World.IN_PROGRESS; t++) {
+                world.step(16000000);
+            }
+
+            assertEquals(World.LOST, world.getOutcome());
+            assertTrue(world.getPlayer().isDestroyed());
+            assertEquals(0, world.getEnemyShotCount());
+        }
+    }
+
+    @Test
+    public void parallelStep_matchesSerialStep() throws Exception {
+        World serial = new World(1080, 1920, true);
+        World parallel = new World(1080, 1920, true);
+        ParallelRunner runner = new ParallelRunner(4, 100);
+        parallel.setParallelRunner(runner);
+        for (World w : new World[]{serial, parallel}) {
+            for (int i = 0; i < 5000; i++) {
+                //Aliens spread over the top of the screen that only move sideways
+                w.getAliens().add((i * 37) % 1000, (i * 53) % 1200, (i % 9 - 4) / 10.0, 0);
+            }
+            w.steerTowards(300);
+        }
+
+        try {
+            for (int t = 0; t < 600; t++) {
+                if (t % 5 == 0) {
+                    serial.fireShot();
+                    parallel.fireShot();
+                }
+                if (t == 200) {
+                    serial.steerTowards(900);
+                    parallel.steerTowards(900);
+                }
+                serial.step(16000000);
+                parallel.step(16000000);
+                assertEquals(serial.getNumAliensShot(), parallel.getNumAliensShot());
+            }
+        } finally {
+            runner.shutdown();
+        }
+
+        assertTrue(serial.getNumAliensShot() > 0);
+        Swarm a = serial.getAliens();
+        Swarm b = parallel.getAliens();
+        assertEquals(a.size(), b.size());
+        for (int i = 0; i < a.size(); i++) {
+            assertEquals(a.getX(i), b.getX(i), 0);
+            assertEquals(a.getY(i), b.getY(i), 0);
+        }
+    }
+}
@@ -0,0 +1,256 @@
+package alec.is.awesome.spaceinvaders.core;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests that a saved World carries on exactly the same after it is restored.
+ */
+public class WorldStateTest {
+    private static final long STEP = 1000000000L / 60;
+    private static final String WAVES = "win 40\nwave duration=20 rate=1 cap=kills+3 vy=0.02,0.05 fire=0.1\n";
+
+    @Test
+    public void restoredWorld_playsTheSameAsTheOriginal() {
+        checkRestore(false, false);
+    }
+
+    @Test
+    public void restoredDataOrientedWorld_playsTheSameAsTheOriginal() {
+        checkRestore(true, true);
+    }
+
+    @Test
+    public void stateFromEitherKindOfWorld_canBeReadByTheOther() {
+        checkRestore(false, true);
+        checkRestore(true, false);
+    }
+
+    @Test
+    public void restoreOnARotatedScreen_keepsEverythingInProportion() {
+        World world = new World(1080, 1920);
+        world.setSpawnDirector(SpawnDirector.parse(WAVES));
+        world.reset(5);
+        for (int i = 0; i < 600; i++) {
+            world.step(STEP);
+        }
+        World rotated = restore(world, false, 1920, 1080);
+        assertEquals(1920, rotated.getWidth());
+        assertEquals(world.getEnemyCount(), rotated.getEnemyCount());
+        for (int i = 0; i < world.getEnemyCount(); i++) {
+            Entity a = world.getEnemies().get(i);
+            Entity b = rotated.getEnemies().get(i);
+            assertEquals(a.getX() / 1080, b.getX() / 1920, 1e-9);
+            assertEquals(a.getY() / 1920, b.getY() / 1080, 1e-9);
+        }
+    }
+
+    @Test
+    public void resizeMidGame_matchesARestoreAtTheNewSize() {
+        checkResize(false);
+        checkResize(true);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void readState_rejectsSomethingElse() {
+        new World(1080, 1920).readState(ByteBuffer.allocate(200), 1080, 1920);
+    }
+
+    @Test
+    public void readState_rejectsATruncatedState() {
+        World world = new World(1080, 1920);
+        world.setSpawnDirector(SpawnDirector.parse(WAVES));
+        world.reset(5);
+        for (int i = 0; i < 300; i++) {
+            world.step(STEP);
+        }
+        ByteBuffer state = ByteBuffer.allocate(world.getStateSize());
+        world.writeState(state);
+        //Cut off at every point after the header, inside the lists and inside the waves
+        for (int length = 93; length < state.capacity(); length++) {
+            ByteBuffer cut = ByteBuffer.wrap(state.array(), 0, length);
+            World restored = new World(1080, 1920);
+            restored.setSpawnDirector(SpawnDirector.parse(WAVES));
+            try {
+                restored.readState(cut, 1080, 1920);
+                fail("read a state cut to " + length + " of " + state.capacity() + " bytes");
+            } catch (IllegalArgumentException e) {
+                //Expected
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void readState_rejectsImpossibleLengths() {
+        World world = new World(1080, 1920);
+        world.reset(5);
+        ByteBuffer state = ByteBuffer.allocate(world.getStateSize());
+        world.writeState(state);
+        state.putInt(81, Integer.MAX_VALUE); //The number of aliens
+        state.flip();
+        new World(1080, 1920).readState(state, 1080, 1920);
+    }
+
+    @Test
+    public void readState_rejectsACorruptedOutcome() {
+        World world = new World(1080, 1920);
+        world.reset(5);
+        ByteBuffer state = ByteBuffer.allocate(world.getStateSize());
+        world.writeState(state);
+        for (int outcome : new int[]{-1, 3, 7, Integer.MIN_VALUE}) {
+            state.putInt(36, outcome);
+            World restored = new World(1080, 1920);
+            try {
+                restored.readState(ByteBuffer.wrap(state.array()), 1080, 1920);
+                fail("read an outcome of " + outcome);
+            } catch (IllegalArgumentException e) {
+                //Expected, and nothing was changed
+                assertEquals(World.IN_PROGRESS, restored.getOutcome());
+            }
+        }
+    }
+
+    @Test
+    public void readState_rejectsOtherDamagedHeaders() {
+        World world = new World(1080, 1920);
+        world.setSpawnDirector(SpawnDirector.parse(WAVES));
+        world.reset(5);
+        ByteBuffer state = ByteBuffer.allocate(world.getStateSize());
+        world.writeState(state);
+        byte[] saved = state.array();
+
+        ByteBuffer numShot = ByteBuffer.wrap(saved.clone());
+        numShot.putInt(32, -1);
+        ByteBuffer elapsed = ByteBuffer.wrap(saved.clone());
+        elapsed.putLong(40, -1);
+        ByteBuffer hit = ByteBuffer.wrap(saved.clone());
+        hit.put(80, (byte) 2);
+        //The wave the game was in, just after the waves' hash and length
+        ByteBuffer wave = ByteBuffer.wrap(saved.clone());
+        wave.putInt(101, 99);
+        for (ByteBuffer damaged : new ByteBuffer[]{numShot, elapsed, hit, wave}) {
+            World restored = new World(1080, 1920);
+            restored.setSpawnDirector(SpawnDirector.parse(WAVES));
+            try {
+                restored.readState(damaged, 1080, 1920);
+                fail("read a damaged state");
+            } catch (IllegalArgumentException e) {
+                //Expected
+            }
+        }
+        //Undamaged it is read
+        new World(1080, 1920).readState(ByteBuffer.wrap(saved), 1080, 1920);
+    }
+
+    /**
+     * Play part of a game, save and restore it, then give both the same input and compare them
+     */
+    private void checkRestore(boolean dataOriented, boolean restoreDataOriented) {
+        World world = new World(1080, 1920, dataOriented);
+        world.setSpawnDirector(SpawnDirector.parse(WAVES));
+        world.reset(1234);
+        Random input = new Random(99);
+        for (int tick = 0; tick < 300; tick++) {
+            play(world, input);
+        }
+        assertEquals(World.IN_PROGRESS, world.getOutcome());
+        assertTrue("the game should have some aliens to save", world.getEnemyCount() > 0);
+
+        World restored = restore(world, restoreDataOriented, 1080, 1920);
+        assertEquals(world.getSeed(), restored.getSeed());
+        assertEquals(world.getElapsedNanos(), restored.getElapsedNanos());
+
+        Random inputA = new Random(7);
+        Random inputB = new Random(7);
+        for (int tick = 0; tick < 6000 && world.getOutcome() == World.IN_PROGRESS; tick++) {
+            play(world, inputA);
+            play(restored, inputB);
+        }
+        assertEquals(world.getOutcome(), restored.getOutcome());
+        assertEquals(world.getNumAliensShot(), restored.getNumAliensShot());
+        assertEquals(world.getEnemyCount(), restored.getEnemyCount());
+        assertEquals(world.getEnemyShotCount(), restored.getEnemyShotCount());
+
+        FrameSnapshot a = new FrameSnapshot();
+        FrameSnapshot b = new FrameSnapshot();
+        world.writeSnapshot(a);
+        restored.writeSnapshot(b);
+        assertEquals(a.size(), b.size());
+        if (dataOriented == restoreDataOriented) {
+            for (int i = 0; i < a.size(); i++) {
+                assertEquals(a.getX(i), b.getX(i), 0);
+                assertEquals(a.getY(i), b.getY(i), 0);
+            }
+        }
+    }
+
+    /**
+     * Resize a World during a game and check it is the same as one saved and restored at the new size,
+     * with everything on the screen at the new sizes, and that both play on the same
+     */
+    private void checkResize(boolean dataOriented) {
+        World world = new World(1080, 1920, dataOriented);
+        world.setSpawnDirector(SpawnDirector.parse(WAVES));
+        world.reset(77);
+        Random input = new Random(5);
+        for (int tick = 0; tick < 300; tick++) {
+            play(world, input);
+        }
+        assertEquals(World.IN_PROGRESS, world.getOutcome());
+        assertTrue("the game should have some aliens to resize", world.getEnemyCount() > 0);
+
+        World restored = restore(world, dataOriented, 1920, 1080);
+        world.setBounds(1920, 1080);
+        assertArrayEquals(state(restored), state(world));
+
+        ShipEntity player = world.getPlayer();
+        assertEquals(ShipEntity.dims(world), player.getWidth());
+        assertEquals(1080 - ShipEntity.dims(world) - 10, player.getY(), 0);
+        assertTrue(player.getX() >= 0 && player.getX() + player.getWidth() <= 1920);
+        FrameSnapshot frame = new FrameSnapshot();
+        world.writeSnapshot(frame);
+        for (int i = 0; i < frame.size(); i++) {
+            Sprite sprite = frame.getSprite(i);
+            int width = sprite == Sprite.PLAYER_SHIP ? ShipEntity.dims(world)
+                    : sprite == Sprite.ENEMY_SHIP ? AlienShip.dims(world) : Shot.width(world);
+            assertEquals(sprite.toString(), width, frame.getWidth(i));
+        }
+
+        Random restoredInput = new Random(6);
+        input = new Random(6);
+        for (int tick = 0; tick < 300; tick++) {
+            play(world, input);
+            play(restored, restoredInput);
+        }
+        assertArrayEquals(state(restored), state(world));
+    }
+
+    private static byte[] state(World world) {
+        ByteBuffer state = ByteBuffer.allocate(world.getStateSize());
+        world.writeState(state);
+        return state.array();
+    }
+
+    private static World restore(World world, boolean dataOriented, int width, int height) {
+        ByteBuffer state = ByteBuffer.allocate(world.getStateSize());
+        world.writeState(state);
+        assertEquals("getStateSize should be exact", 0, state.remaining());
+        state.flip();
+
+        World restored = new World(720, 1280, dataOriented);
+        restored.setSpawnDirector(SpawnDirector.parse(WAVES));
+        restored.readState(state, width, height);
+        return restored;
+    }
+
+    private static void play(World world, Random input) {
+        if (input.nextInt(30) == 0) {
+            world.apply(input.nextInt(3), input.nextFloat() * world.getWidth());
+        }
+        world.step(STEP);
+    }
+}